@@ -0,0 +1,73 @@
+#!/usr/bin/env bash
+#
+# Builds the startup-optimized distribution of the backend.
+#
+#   1. Packages the jar with Spring AOT processing (-Pstartup), so bean definitions
+#      are generated at build time instead of discovered by reflection at startup.
+#   2. Extracts the jar into an exploded layout, which the JVM can map classes from.
+#   3. Does a training run with the startup profile: boots the app, sends warm-up
+#      requests so the lazily created controllers, services and the MongoDB and Jackson
+#      code paths are loaded, then stops it. On exit the JVM dumps every loaded class
+#      into a Class Data Sharing (CDS) archive.
+#
+# The warm-up requests need MongoDB to produce full responses; if it is unreachable they
+# still load the request path up to the database call, so the archive is smaller but valid.
+#
+# Output: target/startup/ (run it with scripts/start.sh)
+#
+# Environment:
+#   TRAINING_PORT      port for the training run (default 8089)
+#   TRAINING_TIMEOUT   seconds to wait for the app to answer (default 120)
+
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+TRAINING_PORT=${TRAINING_PORT:-8089}
+TRAINING_TIMEOUT=${TRAINING_TIMEOUT:-120}
+WARMUP_PATHS=(
+	"/api/videos/featured?category=movies"
+	"/api/videos/category?category=movies"
+	"/api/videos/search?title=a"
+	"/api/videos/browse"
+	"/api/videos/trending"
+	"/api/videos"
+)
+
+./mvnw -B -Pstartup clean package -DskipTests
+
+JAR=$(ls target/*.jar | grep -v '\.original$' | head -n 1)
+rm -rf target/startup
+java -Djarmode=tools -jar "$JAR" extract --destination target/startup
+
+java -XX:ArchiveClassesAtExit=target/startup/app.jsa \
+	-Dspring.aot.enabled=true \
+	-Dspring.profiles.active=startup \
+	-jar "target/startup/$(basename "$JAR")" \
+	--server.port="$TRAINING_PORT" \
+	--app.data-dir=target/training-data &
+PID=$!
+
+BASE="http://localhost:${TRAINING_PORT}"
+DEADLINE=$(( $(date +%s) + TRAINING_TIMEOUT ))
+until curl -s -o /dev/null "${BASE}${WARMUP_PATHS[0]}"; do
+	if ! kill -0 "$PID" 2> /dev/null; then
+		echo "training run exited before serving requests" >&2
+		exit 1
+	fi
+	if (( $(date +%s) > DEADLINE )); then
+		echo "training run did not answer within ${TRAINING_TIMEOUT}s" >&2
+		kill "$PID"
+		exit 1
+	fi
+	sleep 0.5
+done
+
+# Each path twice, so classes first touched on the second call (cached responses, ETags) are included too
+for path in "${WARMUP_PATHS[@]}" "${WARMUP_PATHS[@]}"; do
+	curl -s -o /dev/null -w "warm-up %{http_code} ${path}\n" "${BASE}${path}" || true
+done
+
+# SIGTERM runs a normal JVM exit, which is when the archive is written
+kill -TERM "$PID"
+wait "$PID" || true
+test -s target/startup/app.jsa
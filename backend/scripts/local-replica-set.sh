@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+#
+# Starts a single-node MongoDB replica set in Docker for local development.
+# Change streams (used to keep caches coherent across backend nodes) need a
+# replica set; a standalone mongod does not support them.
+#
+# Run two backends against it to see writes on one reach the other:
+#   SPRING_DATA_MONGODB_URI="mongodb://localhost:27017/digitalvideostore?replicaSet=rs0&directConnection=true" \
+#     APP_CHANGES_TOKEN_DIR=/tmp/dvs-node1 ./mvnw spring-boot:run
+#   (second node: also set SERVER_PORT=8081 and a different APP_CHANGES_TOKEN_DIR
+#    and APP_CATALOG_SNAPSHOT_FILE)
+
+set -euo pipefail
+
+NAME=${MONGO_CONTAINER:-dvs-mongo-rs}
+PORT=${MONGO_PORT:-27017}
+
+if ! docker ps -a --format '{{.Names}}' | grep -qx "$NAME"; then
+	docker run -d --name "$NAME" -p "$PORT:27017" mongo:7 --replSet rs0 --bind_ip_all
+else
+	docker start "$NAME" >/dev/null
+fi
+
+until docker exec "$NAME" mongosh --quiet --eval 'db.adminCommand("ping").ok' >/dev/null 2>&1; do
+	sleep 1
+done
+
+docker exec "$NAME" mongosh --quiet --eval '
+	try {
+		rs.status();
+	} catch (e) {
+		rs.initiate({_id: "rs0", members: [{_id: 0, host: "localhost:27017"}]});
+	}
+'
+
+echo "Replica set rs0 ready: mongodb://localhost:$PORT/digitalvideostore?replicaSet=rs0&directConnection=true"
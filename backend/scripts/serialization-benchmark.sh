@@ -0,0 +1,18 @@
+#!/usr/bin/env bash
+#
+# Compares JSON serialization of catalog responses before (full Video documents,
+# reflective) and after (VideoCard / VideoDetail with hand-written serializers):
+# response size, bytes allocated per response and responses per second.
+#
+# Usage: scripts/serialization-benchmark.sh [list-size]
+#   list-size  videos per list response (default 50)
+
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+./mvnw -q -DskipTests test-compile
+./mvnw -q dependency:build-classpath -Dmdep.outputFile=target/benchmark.classpath -Dmdep.includeScope=test
+
+exec java -Xms512m -Xmx512m \
+	-cp "target/test-classes:target/classes:$(cat target/benchmark.classpath)" \
+	com.digitalvideostore.benchmark.SerializationBenchmark "$@"
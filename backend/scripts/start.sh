@@ -0,0 +1,19 @@
+#!/usr/bin/env bash
+#
+# Starts the startup-optimized build produced by scripts/build-startup.sh:
+# AOT-generated bean definitions, the CDS archive, and the "startup" profile
+# (lazy bean initialization, deferred index checks).
+#
+# Extra JVM options can be passed through JAVA_OPTS.
+
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+JAR=$(ls target/startup/*.jar | head -n 1)
+
+exec java \
+	-XX:SharedArchiveFile=target/startup/app.jsa -Xshare:auto \
+	-Dspring.aot.enabled=true \
+	-Dspring.profiles.active=startup \
+	${JAVA_OPTS:-} \
+	-jar "$JAR" "$@"
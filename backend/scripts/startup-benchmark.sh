@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+#
+# Measures time-to-first-response: milliseconds from launching the JVM until the
+# first HTTP response on URL_PATH. Compares the plain fat jar (what render.yaml used
+# to run) against the startup-optimized mode from scripts/start.sh.
+#
+# Usage: scripts/startup-benchmark.sh [runs] [url-path]
+#   runs      runs per mode (default 5)
+#   url-path  endpoint to poll (default /api/videos/featured?category=movies)
+#
+# Both modes run with the deployed configuration: the JVM sizes itself as it does on a
+# Render free instance (512 MB, one CPU), and with no APP_DATA_DIR disk every boot is a
+# cold one that loads the catalog from MongoDB. Override DEPLOY_JAVA_OPTS to match
+# another instance type.
+#
+# Build first with scripts/build-startup.sh. Needs curl and a reachable MongoDB.
+# Results are printed and appended, with the date, JVM version and options, to target/startup-benchmark.txt.
+
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+RUNS=${1:-5}
+URL_PATH=${2:-/api/videos/featured?category=movies}
+PORT=${PORT:-8080}
+URL="http://localhost:${PORT}${URL_PATH}"
+DEPLOY_JAVA_OPTS=${DEPLOY_JAVA_OPTS:--XX:MaxRAM=512m -XX:ActiveProcessorCount=1}
+
+# Match the free-tier deployment, which has no persistent disk for the catalog snapshot
+export APP_DATA_DIR="$(mktemp -d)"
+trap 'rm -rf "$APP_DATA_DIR"' EXIT
+
+JAR=$(ls target/*.jar | grep -v '\.original$' | head -n 1)
+
+now_ms() {
+	date +%s%3N
+}
+
+# Launches the given command, polls URL until it answers, prints elapsed ms, then stops the JVM
+measure() {
+	local start pid elapsed
+	# A snapshot left by the previous run would turn this boot into a warm one
+	rm -rf "${APP_DATA_DIR:?}"/*
+	start=$(now_ms)
+	"$@" --server.port="$PORT" > /dev/null 2>&1 &
+	pid=$!
+	until curl -s -o /dev/null "$URL"; do
+		if ! kill -0 "$pid" 2> /dev/null; then
+			echo "process exited before responding" >&2
+			return 1
+		fi
+		sleep 0.02
+	done
+	elapsed=$(( $(now_ms) - start ))
+	kill "$pid"
+	wait "$pid" 2> /dev/null || true
+	echo "$elapsed"
+}
+
+median() {
+	sort -n | awk '{ a[NR] = $1 } END { print (NR % 2) ? a[(NR + 1) / 2] : int((a[NR / 2] + a[NR / 2 + 1]) / 2) }'
+}
+
+run_mode() {
+	local label=$1
+	shift
+	local results=()
+	for ((i = 1; i <= RUNS; i++)); do
+		results+=("$(measure "$@")")
+	done
+	printf '%-10s median %6s ms   runs: %s\n' "$label" "$(printf '%s\n' "${results[@]}" | median)" "${results[*]}"
+}
+
+{
+	echo "$(date -u +%Y-%m-%dT%H:%M:%SZ) $(java -version 2>&1 | head -n 1)"
+	echo "Time to first response on ${URL_PATH} (${RUNS} runs each, ${DEPLOY_JAVA_OPTS}, cold catalog)"
+	# shellcheck disable=SC2086
+	run_mode "baseline" java ${DEPLOY_JAVA_OPTS} -jar "$JAR"
+	JAVA_OPTS="${DEPLOY_JAVA_OPTS} ${JAVA_OPTS:-}" run_mode "optimized" scripts/start.sh
+	echo
+} | tee -a target/startup-benchmark.txt
@@ -5,6 +5,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.digitalvideostore.controller.StaleResponseAdvice;
+
 /**
  * CORS Configuration
  * 
@@ -31,7 +33,8 @@ public class CorsConfig {
 						"https://digital-video-store-livid.vercel.app"
 					)
 					.allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-					.allowedHeaders("*");
+					.allowedHeaders("*")
+					.exposedHeaders(StaleResponseAdvice.STALE_HEADER);
 			}
 		};
 	}
@@ -0,0 +1,41 @@
+package com.digitalvideostore.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MongoDB Client Configuration
+ *
+ * - Caps how long the driver waits to find a server, connect and read a reply, so an unreachable
+ *   cluster surfaces as an error within seconds instead of the driver's 30-second defaults.
+ * - These bound calls that DatabaseGuard has already given up on, and calls made outside it.
+ * - Applied after the connection string, so they override timeouts set in spring.data.mongodb.uri.
+ */
+@Configuration
+public class MongoClientConfig {
+
+	@Value("${app.mongo.server-selection-timeout-ms:3000}")
+	private long serverSelectionTimeoutMs;
+
+	@Value("${app.mongo.connect-timeout-ms:3000}")
+	private int connectTimeoutMs;
+
+	@Value("${app.mongo.read-timeout-ms:5000}")
+	private int readTimeoutMs;
+
+	/**
+	 * @return customizer applying the driver timeouts
+	 */
+	@Bean
+	public MongoClientSettingsBuilderCustomizer mongoTimeoutCustomizer() {
+		return builder -> builder
+			.applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(serverSelectionTimeoutMs, TimeUnit.MILLISECONDS))
+			.applyToSocketSettings(socket -> socket
+				.connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+				.readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS));
+	}
+}
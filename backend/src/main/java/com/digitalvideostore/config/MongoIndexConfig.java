@@ -0,0 +1,73 @@
+package com.digitalvideostore.config;
+
+import java.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.digitalvideostore.model.Customer;
+import com.digitalvideostore.model.PlaybackProgress;
+import com.digitalvideostore.service.CustomerService;
+
+/**
+ * MongoIndexConfig
+ *
+ * - Creates the indexes the API's queries rely on (automatic index creation is off in Spring Boot).
+ * - Customers: one {field, _id} index per directory sort order, plus a multikey index for prefix search.
+ * - Playback progress: customerId, which a customer's progress is read by.
+ * - Backfills searchKeys on customers saved before search existed.
+ * - Index creation is idempotent, so this is safe to run on every start.
+ * - Runs on a background thread after startup (optionally delayed), so it never holds up the first request.
+ */
+@Configuration
+public class MongoIndexConfig {
+
+	private static final Logger log = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private TaskScheduler taskScheduler;
+
+	@Value("${app.mongo.index-init-delay-ms:0}")
+	private long indexInitDelayMs;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void scheduleIndexCheck() {
+		taskScheduler.schedule(this::ensureIndexes, Instant.now().plusMillis(indexInitDelayMs));
+	}
+
+	void ensureIndexes() {
+		try {
+			IndexOperations customers = mongoTemplate.indexOps(Customer.class);
+			customers.ensureIndex(new Index().on("firstName", Sort.Direction.ASC).on("_id", Sort.Direction.ASC));
+			customers.ensureIndex(new Index().on("lastName", Sort.Direction.ASC).on("_id", Sort.Direction.ASC));
+			customers.ensureIndex(new Index().on("email", Sort.Direction.ASC).on("_id", Sort.Direction.ASC));
+			customers.ensureIndex(new Index().on("searchKeys", Sort.Direction.ASC));
+
+			mongoTemplate.indexOps(PlaybackProgress.class)
+				.ensureIndex(new Index().on("customerId", Sort.Direction.ASC));
+
+			long backfilled = customerService.backfillSearchKeys();
+			if (backfilled > 0) {
+				log.info("Backfilled search keys for {} customers", backfilled);
+			}
+		} catch (RuntimeException e) {
+			log.warn("Could not verify MongoDB indexes; queries will still work but may scan collections", e);
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package com.digitalvideostore.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * SchedulingConfig
+ *
+ * - Enables @Scheduled background jobs (e.g. flushing buffered writes to MongoDB).
+ * - Pool size is set with spring.task.scheduling.pool.size in application.properties.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -20,7 +20,7 @@ public class SecurityConfig {
 		http
 			.csrf(csrf -> csrf.disable())
 			.authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/auth/**", "/api/videos/**", "/api/customers/**").permitAll()
+                .requestMatchers("/api/auth/**", "/api/videos/**", "/api/customers/**", "/api/images/**").permitAll()
 				.anyRequest().authenticated()
 			)
 			.httpBasic(Customizer.withDefaults());
@@ -1,8 +1,12 @@
 package com.digitalvideostore.controller;
 
 import com.digitalvideostore.model.Customer;
+import com.digitalvideostore.model.PlaybackProgress;
 import com.digitalvideostore.service.CustomerService;
+import com.digitalvideostore.service.CustomerService.CustomerPage;
+import com.digitalvideostore.service.PlaybackProgressService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -26,6 +30,9 @@ public class CustomerController {
 	@Autowired
 	private CustomerService customerService;
 
+	@Autowired
+	private PlaybackProgressService playbackProgressService;
+
 	/**
 	 * POST /api/customers
 	 * Creates a new customer entry.
@@ -48,13 +55,52 @@ public class CustomerController {
 
 	/**
 	 * GET /api/customers
-	 * Retrieves a list of all customers.
+	 * Retrieves one page of the customer directory.
 	 *
-	 * @return list of all customers
+	 * - Pass the returned nextCursor back as cursor to get the following page; it is null on the last page.
+	 * - Returns 400 for an unknown sort field or an invalid cursor.
+	 *
+	 * @param sort field to sort by: id (default), firstName, lastName or email
+	 * @param direction asc (default) or desc
+	 * @param cursor cursor from the previous page
+	 * @param limit page size (1 to 500, default 50)
+	 * @return page of customers or error message
 	 */
 	@GetMapping
-	public List<Customer> getAllCustomers() {
-		return customerService.getAllCustomers();
+	public ResponseEntity<?> getCustomers(@RequestParam(defaultValue = "id") String sort,
+			@RequestParam(defaultValue = "asc") String direction,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "50") int limit) {
+		if (!direction.equals("asc") && !direction.equals("desc")) {
+			return ResponseEntity.badRequest().body("Direction must be 'asc' or 'desc'.");
+		}
+		try {
+			CustomerPage page = customerService.getCustomerPage(sort, direction.equals("desc"), cursor,
+				Math.min(Math.max(limit, 1), 500));
+			return ResponseEntity.ok(page);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
+	}
+
+	/**
+	 * GET /api/customers/search?q=
+	 * Finds customers whose first name, last name or email starts with each word of the query.
+	 *
+	 * - Case-insensitive; "jo sm" matches "John Smith".
+	 * - Returns 400 if the query is empty.
+	 *
+	 * @param q search text
+	 * @param limit maximum number of results (1 to 100, default 20)
+	 * @return matching customers or error message
+	 */
+	@GetMapping("/search")
+	public ResponseEntity<?> searchCustomers(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+		try {
+			return ResponseEntity.ok(customerService.searchCustomers(q, Math.min(Math.max(limit, 1), 100)));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		}
 	}
 
 	/**
@@ -132,4 +178,37 @@ public class CustomerController {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
 		}
 	}
+
+	/**
+	 * POST /api/customers/{id}/progress
+	 * Records a watch-progress heartbeat from the player.
+	 *
+	 * - Heartbeats are buffered and written to the database in batches, so this returns 202 immediately.
+	 * - Returns 429 with Retry-After if the buffer is full.
+	 *
+	 * @param id customer ID
+	 * @param heartbeat video ID and current position
+	 * @return empty 202 response, or error message
+	 */
+	@PostMapping("/{id}/progress")
+	public ResponseEntity<?> recordProgress(@PathVariable String id, @Valid @RequestBody PlaybackProgress heartbeat) {
+		if (playbackProgressService.recordHeartbeat(id, heartbeat)) {
+			return ResponseEntity.accepted().build();
+		}
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+			.header(HttpHeaders.RETRY_AFTER, "5")
+			.body("Progress buffer is full; try again shortly.");
+	}
+
+	/**
+	 * GET /api/customers/{id}/progress
+	 * Retrieves the latest playback position for every video the customer has watched.
+	 *
+	 * @param id customer ID
+	 * @return list of playback positions
+	 */
+	@GetMapping("/{id}/progress")
+	public List<PlaybackProgress> getProgress(@PathVariable String id) {
+		return playbackProgressService.getProgress(id);
+	}
 }
\ No newline at end of file
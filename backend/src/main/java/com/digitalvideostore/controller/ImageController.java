@@ -0,0 +1,75 @@
+package com.digitalvideostore.controller;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.digitalvideostore.service.ImageService;
+import com.digitalvideostore.service.ImageService.ImageVariant;
+
+/**
+ * REST controller that serves resized video artwork.
+ * Maps to /api/images and delegates rendering and caching to the ImageService.
+ */
+@RestController
+@RequestMapping("/api/images")
+public class ImageController {
+
+	@Autowired
+	private ImageService imageService;
+
+	/**
+	 * GET /api/images/{videoId}/{variant}?w=320
+	 * Returns a video's card image ("card") or large poster ("poster"), resized to the requested width.
+	 *
+	 * - Serves WebP when the client's Accept header allows it and the server can encode it, JPEG otherwise.
+	 * - The body is a file resource, so Range requests and ETag/If-None-Match revalidation are handled by Spring MVC.
+	 * - The URL stays the same when a video's artwork is edited, so responses are only fresh for a few minutes;
+	 *   after that clients and CDNs revalidate with the ETag and normally get a 304.
+	 *
+	 * @param videoId the video ID
+	 * @param variant "card" or "poster"
+	 * @param w optional target width in pixels (rounded up to the nearest supported width)
+	 * @param accept the request's Accept header, used for format negotiation
+	 * @return the image file, 400 for an unknown variant, or 404 if the video or image does not exist
+	 */
+	@GetMapping("/{videoId}/{variant}")
+	public ResponseEntity<?> getImage(@PathVariable String videoId, @PathVariable String variant,
+			@RequestParam(required = false) Integer w,
+			@RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+		if (w != null && w <= 0) {
+			return ResponseEntity.badRequest().body("Width must be a positive number of pixels.");
+		}
+
+		boolean preferWebp = accept != null && accept.contains("image/webp");
+
+		try {
+			Optional<ImageVariant> image = imageService.getVariant(videoId, variant, w, preferWebp);
+			if (image.isEmpty()) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No " + variant + " image for video with ID " + videoId + ".");
+			}
+
+			ImageVariant found = image.get();
+			return ResponseEntity.ok()
+				.contentType(found.contentType())
+				.cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+				.eTag(found.etag())
+				.lastModified(Files.getLastModifiedTime(found.file()).toMillis())
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+				.body(new FileSystemResource(found.file()));
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().body(e.getMessage());
+		} catch (IOException e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Could not render image: " + e.getMessage());
+		}
+	}
+}
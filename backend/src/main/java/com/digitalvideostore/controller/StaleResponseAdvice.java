@@ -0,0 +1,62 @@
+package com.digitalvideostore.controller;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.digitalvideostore.service.DatabaseGuard;
+
+/**
+ * Surfaces database degradation to clients.
+ *
+ * - Responses built from last-known-good data (see DatabaseGuard) get an "X-Data-Stale: true" header.
+ * - Database failures with no fallback become 503 with Retry-After instead of a generic 500.
+ */
+@RestControllerAdvice
+public class StaleResponseAdvice implements ResponseBodyAdvice<Object> {
+
+	public static final String STALE_HEADER = "X-Data-Stale";
+
+	// Seconds; matches the default time the database circuit stays open
+	private static final String RETRY_AFTER_SECONDS = "10";
+
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+		return true;
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+			Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+			ServerHttpResponse response) {
+		if (request instanceof ServletServerHttpRequest servletRequest
+				&& servletRequest.getServletRequest().getAttribute(DatabaseGuard.STALE_ATTRIBUTE) != null) {
+			response.getHeaders().set(STALE_HEADER, "true");
+		}
+		return body;
+	}
+
+	/**
+	 * Maps an unreachable, overloaded or timed-out database to 503.
+	 *
+	 * @param e the data access failure
+	 * @return 503 with a Retry-After header and error message
+	 */
+	@ExceptionHandler({DataAccessResourceFailureException.class, TransientDataAccessException.class})
+	public ResponseEntity<String> handleDatabaseUnavailable(RuntimeException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+			.header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+			.body("The catalog database is temporarily unavailable. Please try again shortly.");
+	}
+}
@@ -1,27 +1,49 @@
 package com.digitalvideostore.controller;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.digitalvideostore.model.Video;
+import com.digitalvideostore.model.VideoCard;
+import com.digitalvideostore.model.VideoDetail;
+import com.digitalvideostore.service.CatalogEventService;
+import com.digitalvideostore.service.CatalogIndex.BrowseQuery;
+import com.digitalvideostore.service.CatalogIndex.BrowseResult;
+import com.digitalvideostore.service.PopularityService;
 import com.digitalvideostore.service.VideoService;
+import com.digitalvideostore.service.VideoService.VideoLookup;
 
 /**
  * REST controller for handling all video-related endpoints.
  * Maps to /api/videos and delegates logic to the VideoService.
+ * Catalog reads return compact VideoCard (lists) and VideoDetail (single video) views;
+ * create, update and the full GET /api/videos listing keep the complete Video document.
  */
 @RestController
 @RequestMapping("/api/videos")
 public class VideoController {
 
+	// Upper bound on IDs per multi-get request
+	private static final int MAX_LOOKUP_IDS = 200;
+
 	@Autowired
 	private VideoService videoService;
 
+	@Autowired
+	private PopularityService popularityService;
+
+	@Autowired
+	private CatalogEventService catalogEventService;
+
 	/**
 	 * POST /api/videos
 	 * Creates a new video and saves it to the database.
@@ -46,23 +68,86 @@ public class VideoController {
 		return videoService.getAllVideos();
 	}
 
+	/**
+	 * GET /api/videos?ids=a,b,c
+	 * Retrieves many videos by ID in one request.
+	 *
+	 * - Videos are returned in the order the IDs were given; unknown IDs are listed under "missing".
+	 * - Returns 400 if more than 200 IDs are requested.
+	 *
+	 * @param ids the video IDs (comma-separated or repeated)
+	 * @return found videos and missing IDs, or error message
+	 */
+	@GetMapping(params = "ids")
+	public ResponseEntity<?> getVideosByIds(@RequestParam List<String> ids) {
+		return lookup(ids);
+	}
+
+	/**
+	 * POST /api/videos/lookup
+	 * Same as GET /api/videos?ids=..., for ID lists too long for a URL.
+	 *
+	 * @param request body of the form {"ids": ["...", "..."]}
+	 * @return found videos and missing IDs, or error message
+	 */
+	@PostMapping("/lookup")
+	public ResponseEntity<?> lookupVideos(@RequestBody LookupRequest request) {
+		return lookup(request.ids() == null ? List.of() : request.ids());
+	}
+
+	/**
+	 * Request body for POST /api/videos/lookup.
+	 *
+	 * @param ids the video IDs to look up
+	 */
+	public record LookupRequest(List<String> ids) {
+	}
+
+	/**
+	 * Response body for multi-get.
+	 *
+	 * @param videos the found videos, in request order
+	 * @param missing the requested IDs that do not exist
+	 */
+	public record LookupResponse(List<VideoCard> videos, List<String> missing) {
+	}
+
+	/**
+	 * Response body for GET /api/videos/browse.
+	 *
+	 * @param total number of videos matching all filters
+	 * @param videos the requested page of matches
+	 * @param facets counts per value for "genre", "category", "year" and "featured"
+	 */
+	public record BrowseResponse(int total, List<VideoCard> videos, Map<String, Map<String, Integer>> facets) {
+	}
+
+	private ResponseEntity<?> lookup(List<String> ids) {
+		if (ids.size() > MAX_LOOKUP_IDS) {
+			return ResponseEntity.badRequest().body("At most " + MAX_LOOKUP_IDS + " IDs can be looked up at once.");
+		}
+		VideoLookup result = videoService.getVideosByIds(ids);
+		return ResponseEntity.ok(new LookupResponse(VideoCard.fromAll(result.videos()), result.missing()));
+	}
+
 	/**
 	 * GET /api/videos/{id}
 	 * Retrieves a specific video by its ID.
 	 *
 	 * - Validates if the video exists before returning it.
-	 * - If found, returns the video with HTTP 200.
+	 * - If found, counts a view and returns the video with HTTP 200.
 	 * - If not found, returns 404 with an error message.
 	 *
 	 * @param id the video ID
-	 * @return the found video or error message
+	 * @return the video's detail view or error message
 	 */
 	@GetMapping("/{id}")
 	public ResponseEntity<?> getVideoById(@PathVariable String id) {
 		Optional<Video> video = videoService.getVideoById(id);
 
 		if (video.isPresent()) {
-			return ResponseEntity.ok(video.get());
+			popularityService.recordView(video.get());
+			return ResponseEntity.ok(VideoDetail.from(video.get()));
 		} else {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Video with ID " + id + " not found.");
 		}
@@ -124,11 +209,11 @@ public class VideoController {
 	 * Returns videos from a specific category (e.g., movies or tvShows).
 	 *
 	 * @param category the category to filter by
-	 * @return a list of videos in that category
+	 * @return cards for the videos in that category
 	 */
 	@GetMapping("/category")
-	public List<Video> getVideosByCategory(@RequestParam String category) {
-		return videoService.getVideosByCategory(category);
+	public List<VideoCard> getVideosByCategory(@RequestParam String category) {
+		return VideoCard.fromAll(videoService.getVideosByCategory(category));
 	}
 
 	/**
@@ -136,11 +221,11 @@ public class VideoController {
 	 * Returns videos with titles that contain the given keyword.
 	 *
 	 * @param title the partial title to search
-	 * @return a list of matching videos
+	 * @return cards for the matching videos
 	 */
 	@GetMapping("/search")
-	public List<Video> searchVideosByTitle(@RequestParam String title) {
-		return videoService.searchVideosByTitle(title);
+	public List<VideoCard> searchVideosByTitle(@RequestParam String title) {
+		return VideoCard.fromAll(videoService.searchVideosByTitle(title));
 	}
 
 	/**
@@ -148,11 +233,114 @@ public class VideoController {
 	 * Returns featured videos for a given category.
 	 *
 	 * @param category the category to filter featured videos by
-	 * @return a list of featured videos
+	 * @return cards for the featured videos
 	 */
 	@GetMapping("/featured")
-	public List<Video> getFeaturedVideos(@RequestParam String category) {
-		return videoService.getFeaturedVideos(category);
+	public List<VideoCard> getFeaturedVideos(@RequestParam String category) {
+		return VideoCard.fromAll(videoService.getFeaturedVideos(category));
+	}
+
+	/**
+	 * GET /api/videos/events
+	 * Server-Sent Events stream of catalog changes, so clients can update incrementally instead of polling.
+	 *
+	 * - "video" events carry {type, id, version}; type is added, updated or deleted. The SSE event ID is the version.
+	 * - "ready" carries the current version once any replay is done; "reset" means the client missed too much and should refetch.
+	 * - Resumes after the Last-Event-ID header (sent automatically by EventSource on reconnect) or the since parameter.
+	 *
+	 * @param since the last version the client has seen
+	 * @param lastEventId the same, as sent by EventSource; takes precedence over since
+	 * @return the event stream
+	 */
+	@GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamCatalogEvents(@RequestParam(required = false) Long since,
+			@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+		return catalogEventService.subscribe(lastEventId != null ? lastEventId : since);
+	}
+
+	/**
+	 * GET /api/videos/trending
+	 * Returns the most popular videos, ranked by a time-decayed score of views, rentals and purchases.
+	 *
+	 * - Served from memory; rankings refresh every few seconds.
+	 *
+	 * @param category optional category to filter by (e.g., movies or tvShows)
+	 * @param limit maximum number of videos to return (at most 50)
+	 * @return cards for the trending videos, most popular first
+	 */
+	@GetMapping("/trending")
+	public List<VideoCard> getTrendingVideos(@RequestParam(required = false) String category,
+			@RequestParam(defaultValue = "10") int limit) {
+		return VideoCard.fromAll(popularityService.getTrending(category, Math.max(0, limit)));
+	}
+
+	/**
+	 * GET /api/videos/browse
+	 * Filters the catalog by any combination of genre, category, year, price and featured flag,
+	 * and returns facet counts for genre, category, year and featured.
+	 *
+	 * - Repeated (or comma-separated) genre and category values match any of them.
+	 * - Served from in-memory bitmap indexes, kept in sync with video writes.
+	 *
+	 * @param genre genres to include
+	 * @param category categories to include
+	 * @param minYear earliest release year, inclusive
+	 * @param maxYear latest release year, inclusive
+	 * @param minPrice lowest price, inclusive
+	 * @param maxPrice highest price, inclusive
+	 * @param priceType "rent" (default) or "buy", the price the range applies to
+	 * @param featured true or false to filter by the featured flag
+	 * @param offset number of matches to skip
+	 * @param limit maximum number of videos to return (at most 200)
+	 * @return matching videos with the total count and facet counts, or 400 for an unknown price type
+	 */
+	@GetMapping("/browse")
+	public ResponseEntity<?> browseVideos(@RequestParam(required = false) Set<String> genre,
+			@RequestParam(required = false) Set<String> category,
+			@RequestParam(required = false) Integer minYear,
+			@RequestParam(required = false) Integer maxYear,
+			@RequestParam(required = false) Double minPrice,
+			@RequestParam(required = false) Double maxPrice,
+			@RequestParam(defaultValue = "rent") String priceType,
+			@RequestParam(required = false) Boolean featured,
+			@RequestParam(defaultValue = "0") int offset,
+			@RequestParam(defaultValue = "50") int limit) {
+		if (!priceType.equals("rent") && !priceType.equals("buy")) {
+			return ResponseEntity.badRequest().body("Price type must be 'rent' or 'buy'.");
+		}
+
+		BrowseResult result = videoService.browseVideos(new BrowseQuery(genre, category, minYear, maxYear, minPrice, maxPrice,
+			priceType.equals("buy"), featured, Math.max(0, offset), Math.min(Math.max(0, limit), 200)));
+		return ResponseEntity.ok(new BrowseResponse(result.total(), VideoCard.fromAll(result.videos()), result.facets()));
+	}
+
+	/**
+	 * POST /api/videos/{id}/activity
+	 * Records a rental or purchase so it counts towards the video's popularity.
+	 *
+	 * - Views are counted automatically by GET /api/videos/{id}.
+	 *
+	 * @param id the video ID
+	 * @param type "rent" or "buy"
+	 * @return 202 Accepted, 400 for an unknown type, or 404 if the video does not exist
+	 */
+	@PostMapping("/{id}/activity")
+	public ResponseEntity<?> recordActivity(@PathVariable String id, @RequestParam String type) {
+		if (!type.equals("rent") && !type.equals("buy")) {
+			return ResponseEntity.badRequest().body("Activity type must be 'rent' or 'buy'.");
+		}
+
+		Optional<Video> video = videoService.getVideoById(id);
+		if (video.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Video with ID " + id + " not found.");
+		}
+
+		if (type.equals("rent")) {
+			popularityService.recordRent(video.get());
+		} else {
+			popularityService.recordBuy(video.get());
+		}
+		return ResponseEntity.accepted().build();
 	}
 
 	
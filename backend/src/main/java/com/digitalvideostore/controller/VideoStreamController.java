@@ -0,0 +1,155 @@
+package com.digitalvideostore.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import com.digitalvideostore.service.MediaStreamService;
+import com.digitalvideostore.service.MediaStreamService.MediaFile;
+import com.digitalvideostore.service.MediaStreamService.StreamSlot;
+import com.digitalvideostore.service.MediaStreamService.StreamStats;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * REST controller that streams video media files.
+ * Maps to /api/videos and delegates file lookup, concurrency limits and metrics to the MediaStreamService.
+ */
+@RestController
+@RequestMapping("/api/videos")
+public class VideoStreamController {
+
+	@Autowired
+	private MediaStreamService mediaStreamService;
+
+	/**
+	 * GET /api/videos/{id}/stream
+	 * Streams a video's media file with HTTP Range support.
+	 *
+	 * - Without a Range header, returns the whole file with 200.
+	 * - With a single satisfiable range, returns that slice with 206 and Content-Range.
+	 * - Unsatisfiable ranges return 416; multi-range requests are answered with the whole file.
+	 * - If-Range is honored against the ETag and Last-Modified validators.
+	 * - The body is written asynchronously, so the request thread returns immediately.
+	 * - Returns 503 with Retry-After when the node is already serving its maximum number of streams.
+	 *
+	 * @param id the video ID
+	 * @param request the servlet request, used to read Range headers
+	 * @param response the servlet response the file is written to
+	 * @throws IOException if the media file cannot be read
+	 */
+	@GetMapping("/{id}/stream")
+	public void streamVideo(@PathVariable String id, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		Optional<MediaFile> found = mediaStreamService.findMedia(id);
+		if (found.isEmpty()) {
+			writeError(response, HttpStatus.NOT_FOUND, "No media available for video with ID " + id + ".");
+			return;
+		}
+
+		MediaFile media = found.get();
+		long length = media.length();
+		String etag = "\"" + Long.toHexString(media.lastModified()) + "-" + Long.toHexString(length) + "\"";
+
+		long start = 0;
+		long end = length - 1;
+		boolean partial = false;
+
+		String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+		if (rangeHeader != null && rangeStillValid(request, etag, media.lastModified())) {
+			List<HttpRange> ranges;
+			try {
+				ranges = HttpRange.parseRanges(rangeHeader);
+			} catch (IllegalArgumentException e) {
+				// A malformed Range header is ignored and the full file is sent
+				ranges = List.of();
+			}
+
+			if (ranges.size() == 1) {
+				try {
+					start = ranges.get(0).getRangeStart(length);
+					end = ranges.get(0).getRangeEnd(length);
+					partial = true;
+				} catch (IllegalArgumentException e) {
+					response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+					writeError(response, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, "Requested range is not satisfiable.");
+					return;
+				}
+			}
+		}
+
+		long contentLength = length == 0 ? 0 : end - start + 1;
+
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+		response.setHeader(HttpHeaders.ETAG, etag);
+		response.setDateHeader(HttpHeaders.LAST_MODIFIED, media.lastModified());
+		response.setContentType(media.contentType().toString());
+		response.setContentLengthLong(contentLength);
+		if (partial) {
+			response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+			response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+		} else {
+			response.setStatus(HttpStatus.OK.value());
+		}
+
+		if ("HEAD".equals(request.getMethod()) || contentLength == 0) {
+			return;
+		}
+
+		Optional<StreamSlot> slot = mediaStreamService.tryOpenStream(id);
+		if (slot.isEmpty()) {
+			response.reset();
+			response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+			writeError(response, HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent streams; try again shortly.");
+			return;
+		}
+
+		// The slot is released when the transfer completes or fails
+		slot.get().transfer(media.path(), start, contentLength, request);
+	}
+
+	/**
+	 * GET /api/videos/streams
+	 * Returns streaming statistics for this node: the stream cap, counters, and the throughput of every active stream.
+	 *
+	 * @return current stream statistics
+	 */
+	@GetMapping("/streams")
+	public StreamStats getStreamStats() {
+		return mediaStreamService.getStats();
+	}
+
+	/**
+	 * Checks If-Range: a range is only honored if the client's validator still matches the file.
+	 */
+	private static boolean rangeStillValid(HttpServletRequest request, String etag, long lastModified) {
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+		if (ifRange == null) {
+			return true;
+		}
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			return ifRange.equals(etag);
+		}
+		try {
+			return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private static void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+		response.setStatus(status.value());
+		response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.getWriter().write(message);
+	}
+}
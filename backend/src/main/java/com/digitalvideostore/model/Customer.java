@@ -1,8 +1,12 @@
 package com.digitalvideostore.model;
 
+import java.util.List;
+
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
@@ -16,6 +20,7 @@ import lombok.Setter;
  * - Used for user-facing information such as name and email.
  * - Does not handle login credentials (handled in the User model).
  * - Email is duplicated for display/search purposes only — no passwords stored here.
+ * - searchKeys holds lowercased name and email values for indexed prefix search; it is maintained by CustomerService.
  */
 @Document(collection = "customers")
 @Getter
@@ -35,4 +40,7 @@ public class Customer {
 	@NotBlank(message = "Email is required") // Error message for validation failure
 	@Email(message = "Email must be valid") // Error message if email format is invalid
 	private String email;
+
+	@JsonIgnore // Internal search index, never read from or written to the API
+	private List<String> searchKeys;
 }
\ No newline at end of file
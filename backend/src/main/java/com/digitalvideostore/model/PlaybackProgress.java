@@ -0,0 +1,42 @@
+package com.digitalvideostore.model;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * PlaybackProgress Model
+ *
+ * - Latest watch position of one customer in one video, stored in the "playback_progress" collection.
+ * - The document ID is "{customerId}:{videoId}", so each pair has exactly one document.
+ * - Also used as the heartbeat request body; the server fills in the ID, customer and timestamp.
+ */
+@Document(collection = "playback_progress")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PlaybackProgress {
+
+	@Id
+	private String id;
+
+	private String customerId;
+
+	@NotBlank(message = "Video ID is required") // Error message for validation failure
+	private String videoId;
+
+	@PositiveOrZero(message = "Position must not be negative") // Error message for validation failure
+	private double positionSeconds;
+
+	@PositiveOrZero(message = "Duration must not be negative") // Error message for validation failure
+	private double durationSeconds;
+
+	private Instant updatedAt;	// Set by the server when the heartbeat is received
+}
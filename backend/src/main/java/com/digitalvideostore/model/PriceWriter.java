@@ -0,0 +1,48 @@
+package com.digitalvideostore.model;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes prices into JSON without allocating.
+ *
+ * - JsonGenerator.writeNumber(double) formats through Double.toString, which allocates a String per value;
+ *   on list responses that was most of the garbage left after the field writes.
+ * - Whole-cent prices (all real catalog prices) are formatted into a reused per-thread buffer and written raw,
+ *   with the same text Double.toString would give (3.99, 14.99, 4.0). Anything else falls back to writeNumber.
+ */
+final class PriceWriter {
+
+	// Largest price, in cents, formatted by hand; beyond it Double.toString may switch to exponent notation
+	private static final long MAX_CENTS = 1_000_000_00L;
+
+	private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[16]);
+
+	private PriceWriter() {
+	}
+
+	static void write(JsonGenerator gen, double price) throws IOException {
+		long cents = Math.round(price * 100);
+		if (cents < 0 || cents > MAX_CENTS || cents / 100.0 != price) {
+			gen.writeNumber(price);
+			return;
+		}
+
+		char[] buf = BUFFER.get();
+		int pos = buf.length;
+		int fraction = (int) (cents % 100);
+		if (fraction % 10 != 0) {
+			buf[--pos] = (char) ('0' + fraction % 10);
+		}
+		buf[--pos] = (char) ('0' + fraction / 10);
+		buf[--pos] = '.';
+		long whole = cents / 100;
+		do {
+			buf[--pos] = (char) ('0' + whole % 10);
+			whole /= 10;
+		} while (whole > 0);
+
+		gen.writeRawValue(buf, pos, buf.length - pos);
+	}
+}
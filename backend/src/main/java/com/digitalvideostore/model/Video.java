@@ -33,4 +33,6 @@ public class Video {
 	private double rentPrice;
 	private double buyPrice;
 	private boolean featured;
+	private String mediaFile;	// Media file path, relative to the app.media.root directory
+	private long revision;	// Set by VideoService on every save; orders the changes of one video across nodes
 }
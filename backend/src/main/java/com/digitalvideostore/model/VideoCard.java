@@ -0,0 +1,87 @@
+package com.digitalvideostore.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * VideoCard Response
+ *
+ * - The fields a grid or carousel card needs (title, artwork, tagline, prices), returned by the catalog list endpoints.
+ * - Leaves out the description, large poster and media file path, which only the detail view uses.
+ * - Written by a hand-written streaming serializer: field names are pre-encoded once, and numbers are
+ *   written as primitives instead of being boxed for reflective bean access.
+ */
+@JsonSerialize(using = VideoCard.Serializer.class)
+public record VideoCard(String id, String title, String genre, String category, int year, String phrase,
+		String cardImage, double rentPrice, double buyPrice) {
+
+	/**
+	 * @param video the catalog video
+	 * @return its card view
+	 */
+	public static VideoCard from(Video video) {
+		return new VideoCard(video.getId(), video.getTitle(), video.getGenre(), video.getCategory(), video.getYear(),
+			video.getPhrase(), video.getCardImage(), video.getRentPrice(), video.getBuyPrice());
+	}
+
+	/**
+	 * @param videos catalog videos
+	 * @return their card views, in the same order
+	 */
+	public static List<VideoCard> fromAll(List<Video> videos) {
+		List<VideoCard> cards = new ArrayList<>(videos.size());
+		for (Video video : videos) {
+			cards.add(from(video));
+		}
+		return cards;
+	}
+
+	static final class Serializer extends StdSerializer<VideoCard> {
+
+		private static final SerializableString ID = new SerializedString("id");
+		private static final SerializableString TITLE = new SerializedString("title");
+		private static final SerializableString GENRE = new SerializedString("genre");
+		private static final SerializableString CATEGORY = new SerializedString("category");
+		private static final SerializableString YEAR = new SerializedString("year");
+		private static final SerializableString PHRASE = new SerializedString("phrase");
+		private static final SerializableString CARD_IMAGE = new SerializedString("cardImage");
+		private static final SerializableString RENT_PRICE = new SerializedString("rentPrice");
+		private static final SerializableString BUY_PRICE = new SerializedString("buyPrice");
+
+		Serializer() {
+			super(VideoCard.class);
+		}
+
+		@Override
+		public void serialize(VideoCard card, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			gen.writeStartObject(card);
+			gen.writeFieldName(ID);
+			gen.writeString(card.id());
+			gen.writeFieldName(TITLE);
+			gen.writeString(card.title());
+			gen.writeFieldName(GENRE);
+			gen.writeString(card.genre());
+			gen.writeFieldName(CATEGORY);
+			gen.writeString(card.category());
+			gen.writeFieldName(YEAR);
+			gen.writeNumber(card.year());
+			gen.writeFieldName(PHRASE);
+			gen.writeString(card.phrase());
+			gen.writeFieldName(CARD_IMAGE);
+			gen.writeString(card.cardImage());
+			gen.writeFieldName(RENT_PRICE);
+			PriceWriter.write(gen, card.rentPrice());
+			gen.writeFieldName(BUY_PRICE);
+			PriceWriter.write(gen, card.buyPrice());
+			gen.writeEndObject();
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package com.digitalvideostore.model;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * VideoDetail Response
+ *
+ * - Everything the details page shows, returned by GET /api/videos/{id}.
+ * - Leaves out the server-side media file path; playback goes through /api/videos/{id}/stream.
+ * - Written by a hand-written streaming serializer, like VideoCard.
+ */
+@JsonSerialize(using = VideoDetail.Serializer.class)
+public record VideoDetail(String id, String title, String genre, String category, int year, String description,
+		String phrase, String cardImage, String largePoster, double rentPrice, double buyPrice, boolean featured) {
+
+	/**
+	 * @param video the catalog video
+	 * @return its detail view
+	 */
+	public static VideoDetail from(Video video) {
+		return new VideoDetail(video.getId(), video.getTitle(), video.getGenre(), video.getCategory(), video.getYear(),
+			video.getDescription(), video.getPhrase(), video.getCardImage(), video.getLargePoster(),
+			video.getRentPrice(), video.getBuyPrice(), video.isFeatured());
+	}
+
+	static final class Serializer extends StdSerializer<VideoDetail> {
+
+		private static final SerializableString ID = new SerializedString("id");
+		private static final SerializableString TITLE = new SerializedString("title");
+		private static final SerializableString GENRE = new SerializedString("genre");
+		private static final SerializableString CATEGORY = new SerializedString("category");
+		private static final SerializableString YEAR = new SerializedString("year");
+		private static final SerializableString DESCRIPTION = new SerializedString("description");
+		private static final SerializableString PHRASE = new SerializedString("phrase");
+		private static final SerializableString CARD_IMAGE = new SerializedString("cardImage");
+		private static final SerializableString LARGE_POSTER = new SerializedString("largePoster");
+		private static final SerializableString RENT_PRICE = new SerializedString("rentPrice");
+		private static final SerializableString BUY_PRICE = new SerializedString("buyPrice");
+		private static final SerializableString FEATURED = new SerializedString("featured");
+
+		Serializer() {
+			super(VideoDetail.class);
+		}
+
+		@Override
+		public void serialize(VideoDetail detail, JsonGenerator gen, SerializerProvider provider) throws IOException {
+			gen.writeStartObject(detail);
+			gen.writeFieldName(ID);
+			gen.writeString(detail.id());
+			gen.writeFieldName(TITLE);
+			gen.writeString(detail.title());
+			gen.writeFieldName(GENRE);
+			gen.writeString(detail.genre());
+			gen.writeFieldName(CATEGORY);
+			gen.writeString(detail.category());
+			gen.writeFieldName(YEAR);
+			gen.writeNumber(detail.year());
+			gen.writeFieldName(DESCRIPTION);
+			gen.writeString(detail.description());
+			gen.writeFieldName(PHRASE);
+			gen.writeString(detail.phrase());
+			gen.writeFieldName(CARD_IMAGE);
+			gen.writeString(detail.cardImage());
+			gen.writeFieldName(LARGE_POSTER);
+			gen.writeString(detail.largePoster());
+			gen.writeFieldName(RENT_PRICE);
+			PriceWriter.write(gen, detail.rentPrice());
+			gen.writeFieldName(BUY_PRICE);
+			PriceWriter.write(gen, detail.buyPrice());
+			gen.writeFieldName(FEATURED);
+			gen.writeBoolean(detail.featured());
+			gen.writeEndObject();
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.digitalvideostore.repository;
+
+import com.digitalvideostore.model.PlaybackProgress;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * PlaybackProgressRepository
+ *
+ * - Reads persisted playback positions.
+ * - Writes go through PlaybackProgressService, which batches them into bulk upserts.
+ */
+@Repository
+public interface PlaybackProgressRepository extends MongoRepository<PlaybackProgress, String> {
+
+	// Find every saved position for a customer
+	List<PlaybackProgress> findByCustomerId(String customerId);
+}
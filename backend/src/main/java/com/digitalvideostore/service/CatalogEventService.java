@@ -0,0 +1,307 @@
+package com.digitalvideostore.service;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * CatalogEventService
+ *
+ * - Pushes compact catalog change events ("video": type, id, version) to Server-Sent Events subscribers.
+ * - Connections are async servlet requests; an idle subscriber holds no thread, only a small Subscriber with an empty queue.
+ * - Each event is serialized into one SSE frame, and the same frame is queued for every subscriber.
+ * - Every subscriber has its own bounded queue, drained by a virtual thread only while it has something to send,
+ *   so a slow client delays only itself. Subscribers whose queue overflows or whose write stalls are dropped.
+ * - The last few events are kept so clients can resume from a version (Last-Event-ID); older gaps get a "reset" event.
+ *
+ * Versions are issued per node, starting from the boot time in seconds times 2^20, so they keep increasing across
+ * restarts and nodes booted at different times use far-apart ranges. They stay below 2^53, so JavaScript clients
+ * read them exactly. A version this node did not issue (from another node behind the load balancer, or from
+ * before a restart) always gets "reset".
+ */
+@Service
+public class CatalogEventService {
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogEventService.class);
+
+	private static final Set<DataWithMediaType> HEARTBEAT = SseEmitter.event().comment("hb").build();
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${app.events.replay-size:1024}")
+	private int replaySize;
+
+	@Value("${app.events.connection-timeout-ms:1800000}")
+	private long connectionTimeoutMs;
+
+	@Value("${app.events.subscriber-queue-size:256}")
+	private int queueSize;
+
+	@Value("${app.events.write-stall-timeout-ms:10000}")
+	private long writeStallTimeoutMs;
+
+	private final long firstVersion = (System.currentTimeMillis() / 1000) << 20;
+	private final AtomicLong versions = new AtomicLong(firstVersion);
+
+	// Most recent events, oldest first; guarded by itself. Also guards queueing, so every subscriber sees one order.
+	private final ArrayDeque<CatalogEvent> recent = new ArrayDeque<>();
+
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+	private ExecutorService writers;
+
+	/**
+	 * One catalog change as sent to clients.
+	 *
+	 * @param type "added", "updated" or "deleted"
+	 * @param id the video ID
+	 * @param version the catalog version this change produced
+	 */
+	public record CatalogEvent(String type, String id, long version) {
+	}
+
+	private record Marker(long version) {
+	}
+
+	/**
+	 * One connected client and the frames waiting to be written to it.
+	 */
+	private final class Subscriber {
+		final SseEmitter emitter;
+		final BlockingQueue<Set<DataWithMediaType>> queue = new ArrayBlockingQueue<>(queueSize);
+		final AtomicBoolean draining = new AtomicBoolean();
+		volatile boolean closed;
+		volatile long writeStartedAt;	// System.nanoTime() when the write in progress started, 0 while idle
+		volatile Thread writer;
+
+		Subscriber(SseEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		void enqueue(Set<DataWithMediaType> frame) {
+			if (closed) {
+				return;
+			}
+			if (!queue.offer(frame)) {
+				close("more than " + queueSize + " events behind");
+				return;
+			}
+			if (draining.compareAndSet(false, true)) {
+				writers.execute(this::drain);
+			}
+		}
+
+		private void drain() {
+			writer = Thread.currentThread();
+			try {
+				do {
+					Set<DataWithMediaType> frame;
+					while (!closed && (frame = queue.poll()) != null) {
+						writeStartedAt = System.nanoTime();
+						emitter.send(frame);
+						writeStartedAt = 0;
+					}
+					draining.set(false);
+					// Re-check: a frame queued between the last poll and clearing the flag started no drain of its own
+				} while (!closed && !queue.isEmpty() && draining.compareAndSet(false, true));
+			} catch (IOException | RuntimeException e) {
+				close(e.getMessage());
+			} finally {
+				writeStartedAt = 0;
+				writer = null;
+			}
+		}
+
+		boolean isStalled(long now) {
+			long started = writeStartedAt;
+			return started != 0 && now - started > TimeUnit.MILLISECONDS.toNanos(writeStallTimeoutMs);
+		}
+
+		// Stops queueing and writing; called when the connection ended on its own
+		void detach() {
+			closed = true;
+			subscribers.remove(this);
+			queue.clear();
+		}
+
+		// Drops a subscriber that cannot keep up, and ends its connection
+		void close(String reason) {
+			if (closed) {
+				return;
+			}
+			detach();
+			log.debug("Dropping catalog event subscriber: {}", reason);
+			Thread stuck = writer;
+			if (stuck != null && stuck != Thread.currentThread()) {
+				stuck.interrupt();
+			}
+			// Completing waits for a write in progress, so it must not run on the caller's thread
+			writers.execute(() -> emitter.completeWithError(new IOException(reason)));
+		}
+	}
+
+	@PostConstruct
+	void init() {
+		writers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("catalog-events-", 0).factory());
+	}
+
+	@PreDestroy
+	void shutdown() {
+		subscribers.forEach(s -> {
+			s.detach();
+			s.emitter.complete();
+		});
+		writers.shutdownNow();
+	}
+
+	/**
+	 * Opens a subscription.
+	 *
+	 * - With a version, first replays every retained event after it, or sends "reset" if that history is gone
+	 *   or the version was not issued by this node.
+	 * - Then sends "ready" with the current version and streams new events as they happen.
+	 *
+	 * @param since the last version the client has seen, or null for a fresh client
+	 * @return the emitter to return from the controller
+	 */
+	public SseEmitter subscribe(Long since) {
+		SseEmitter emitter = new SseEmitter(connectionTimeoutMs);
+		Subscriber subscriber = new Subscriber(emitter);
+		emitter.onCompletion(subscriber::detach);
+		emitter.onTimeout(subscriber::detach);
+		emitter.onError(e -> subscriber.detach());
+
+		// Replay and registration happen under one lock, so no event is missed or sent twice in between
+		synchronized (recent) {
+			long current = versions.get();
+			if (since != null && since != current) {
+				List<CatalogEvent> replay = replayAfter(since, current);
+				if (replay == null) {
+					subscriber.enqueue(SseEmitter.event().name("reset").data(toJson(new Marker(current))).build());
+				} else {
+					replay.forEach(event -> subscriber.enqueue(frame(event)));
+				}
+			}
+			subscriber.enqueue(SseEmitter.event().name("ready").data(toJson(new Marker(current))).build());
+			subscribers.add(subscriber);
+		}
+		return emitter;
+	}
+
+	/**
+	 * Assigns a version to a catalog change, retains it for resumption and broadcasts it.
+	 *
+	 * @param change the change published by VideoService
+	 */
+	@EventListener
+	public void onVideoChange(VideoChangeEvent change) {
+		synchronized (recent) {
+			CatalogEvent event = new CatalogEvent(change.type().name().toLowerCase(Locale.ROOT), change.videoId(), versions.incrementAndGet());
+			recent.addLast(event);
+			while (recent.size() > replaySize) {
+				recent.removeFirst();
+			}
+			broadcast(frame(event));
+		}
+	}
+
+	/**
+	 * Tells every subscriber to refetch, after the catalog was reloaded without individual change events.
+	 * Retained events are discarded, so resuming from an older version also gets "reset".
+	 */
+	public void broadcastReset() {
+		synchronized (recent) {
+			recent.clear();
+			long version = versions.incrementAndGet();
+			broadcast(SseEmitter.event().name("reset").data(toJson(new Marker(version))).build());
+		}
+	}
+
+	/**
+	 * Sends a comment line to every subscriber so proxies keep idle connections open and dead ones are noticed.
+	 * Also drops subscribers whose current write has been blocked for longer than the stall timeout.
+	 */
+	@Scheduled(fixedDelayString = "${app.events.heartbeat-interval-ms:15000}")
+	public void heartbeat() {
+		long now = System.nanoTime();
+		for (Subscriber subscriber : subscribers) {
+			if (subscriber.isStalled(now)) {
+				subscriber.close("write stalled for more than " + writeStallTimeoutMs + " ms");
+			} else {
+				subscriber.enqueue(HEARTBEAT);
+			}
+		}
+	}
+
+	// The last version issued by this node; package-private for tests
+	long currentVersion() {
+		return versions.get();
+	}
+
+	// Events after the given version, or null if the client must reset instead; called with "recent" held.
+	// Package-private for tests.
+	List<CatalogEvent> replayAfter(long since, long current) {
+		if (since < firstVersion || since > current) {
+			// Issued by another node or a previous run of this one
+			return null;
+		}
+		CatalogEvent oldest = recent.peekFirst();
+		if (oldest == null || since < oldest.version() - 1) {
+			return null;
+		}
+		List<CatalogEvent> replay = new ArrayList<>();
+		for (CatalogEvent event : recent) {
+			if (event.version() > since) {
+				replay.add(event);
+			}
+		}
+		// A replay that would overflow the subscriber's queue is cheaper as a refetch
+		return replay.size() < queueSize ? replay : null;
+	}
+
+	private Set<DataWithMediaType> frame(CatalogEvent event) {
+		return SseEmitter.event().id(Long.toString(event.version())).name("video").data(toJson(event)).build();
+	}
+
+	private void broadcast(Set<DataWithMediaType> frame) {
+		for (Subscriber subscriber : subscribers) {
+			subscriber.enqueue(frame);
+		}
+	}
+
+	private String toJson(Object value) {
+		try {
+			return objectMapper.writeValueAsString(value);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,456 @@
+package com.digitalvideostore.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.digitalvideostore.model.Video;
+import com.digitalvideostore.repository.VideoRepository;
+
+/**
+ * CatalogIndex
+ *
+ * - Keeps the whole video catalog in memory, in sync with VideoService writes via VideoChangeEvent.
+ * - Every change publishes a new immutable snapshot with one bitmap per genre, category, year, price and featured flag.
+ * - Browse queries AND/OR those bitmaps, so any filter combination and its facet counts cost a few word operations per title.
+ * - Listing, category and featured reads keep the order MongoDB returned the videos in (insertion order),
+ *   as they did when they were queried directly; only browse results are ordered by title.
+ */
+@Service
+public class CatalogIndex {
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogIndex.class);
+
+	@Autowired
+	private VideoRepository videoRepository;
+
+	@Autowired
+	private DatabaseGuard databaseGuard;
+
+	// Source of truth for rebuilds, in database order; guarded by "this"
+	private final Map<String, Video> videos = new LinkedHashMap<>();
+
+	// Changes that arrive while a full load is running, re-applied on top of the loaded data; guarded by "this"
+	private Map<String, Optional<Video>> changesDuringLoad;
+
+	// Serializes full reloads
+	private final Object reloadLock = new Object();
+
+	private volatile Snapshot snapshot = Snapshot.build(List.of());
+	private volatile boolean loaded;
+
+	// False while serving data restored from a local snapshot that has not been reconciled with MongoDB yet
+	private volatile boolean fresh;
+
+	// Incremented on every published snapshot
+	private volatile long version;
+
+	/**
+	 * Filters for a browse request. Null or empty fields do not filter.
+	 *
+	 * @param genres match any of these genres
+	 * @param categories match any of these categories
+	 * @param minYear earliest release year, inclusive
+	 * @param maxYear latest release year, inclusive
+	 * @param minPrice lowest price, inclusive
+	 * @param maxPrice highest price, inclusive
+	 * @param buyPrice true to filter on buy price, false for rent price
+	 * @param featured match only featured (true) or non-featured (false) videos
+	 * @param offset number of matches to skip
+	 * @param limit maximum number of matches to return
+	 */
+	public record BrowseQuery(Set<String> genres, Set<String> categories, Integer minYear, Integer maxYear,
+			Double minPrice, Double maxPrice, boolean buyPrice, Boolean featured, int offset, int limit) {
+	}
+
+	/**
+	 * A page of matching videos plus facet counts.
+	 *
+	 * - Each facet is counted with every filter applied except its own, so clients can show how a selection would change.
+	 *
+	 * @param total number of videos matching all filters
+	 * @param videos the requested page of matches, ordered by title
+	 * @param facets counts per value for "genre", "category", "year" and "featured"
+	 */
+	public record BrowseResult(int total, List<Video> videos, Map<String, Map<String, Integer>> facets) {
+	}
+
+	/**
+	 * Loads the catalog from MongoDB once the application has started.
+	 * If a local snapshot was restored at boot, this reconciles it in the background while it keeps serving reads.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadOnStartup() {
+		try {
+			reload();
+		} catch (RuntimeException e) {
+			log.warn("Could not load the video catalog; retrying in the background", e);
+		}
+	}
+
+	/**
+	 * Replaces the in-memory catalog with the current contents of the database.
+	 */
+	public void reload() {
+		synchronized (reloadLock) {
+			beginLoad();
+			List<Video> all;
+			try {
+				all = databaseGuard.bulkRead(videoRepository::findAll);
+			} catch (RuntimeException e) {
+				synchronized (this) {
+					changesDuringLoad = null;
+				}
+				throw e;
+			}
+			load(all, true);
+		}
+	}
+
+	// Starts recording changes, so the next load re-applies whatever happens while its query runs
+	synchronized void beginLoad() {
+		changesDuringLoad = new HashMap<>();
+	}
+
+	/**
+	 * Retries the load from MongoDB while the catalog is only restored from a snapshot (or not loaded at all),
+	 * so it is reconciled soon after the database comes back.
+	 */
+	@Scheduled(fixedDelayString = "${app.catalog.reconcile-interval-ms:30000}")
+	public void reconcileIfStale() {
+		if (fresh) {
+			return;
+		}
+		try {
+			reload();
+			log.info("Video catalog reconciled with MongoDB");
+		} catch (RuntimeException e) {
+			log.debug("Video catalog still not reconciled: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Seeds the catalog from a local snapshot before MongoDB has been queried.
+	 *
+	 * - Ignored if the catalog was already loaded from the database.
+	 *
+	 * @param all every video in the snapshot
+	 */
+	public synchronized void restore(Collection<Video> all) {
+		if (fresh) {
+			return;
+		}
+		load(all, false);
+	}
+
+	/**
+	 * Replaces the catalog, then re-applies the changes recorded since beginLoad, if any.
+	 *
+	 * @param all every video, in database order
+	 * @param fromDatabase true if the videos come from MongoDB rather than a local snapshot
+	 */
+	synchronized void load(Collection<Video> all, boolean fromDatabase) {
+		videos.clear();
+		for (Video video : all) {
+			videos.put(video.getId(), video);
+		}
+		if (changesDuringLoad != null) {
+			changesDuringLoad.forEach((id, video) -> {
+				if (video.isPresent()) {
+					videos.put(id, video.get());
+				} else {
+					videos.remove(id);
+				}
+			});
+			changesDuringLoad = null;
+		}
+		publish();
+		loaded = true;
+		fresh = fresh || fromDatabase;
+	}
+
+	/**
+	 * Applies a saved or deleted video to the index.
+	 *
+	 * @param event the change published by VideoService
+	 */
+	@EventListener
+	public void onVideoChange(VideoChangeEvent event) {
+		if (event.type() == VideoChangeEvent.Type.DELETED) {
+			remove(event.videoId());
+		} else {
+			upsert(event.video());
+		}
+	}
+
+	/**
+	 * Adds or replaces one video and publishes a new snapshot.
+	 *
+	 * @param video the saved video
+	 */
+	public synchronized void upsert(Video video) {
+		videos.put(video.getId(), video);
+		if (changesDuringLoad != null) {
+			changesDuringLoad.put(video.getId(), Optional.of(video));
+		}
+		publish();
+	}
+
+	/**
+	 * Removes one video and publishes a new snapshot.
+	 *
+	 * @param videoId the deleted video's ID
+	 */
+	public synchronized void remove(String videoId) {
+		videos.remove(videoId);
+		if (changesDuringLoad != null) {
+			changesDuringLoad.put(videoId, Optional.empty());
+		}
+		publish();
+	}
+
+	/**
+	 * @return true once the catalog has been loaded at least once, from MongoDB or a local snapshot
+	 */
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+	/**
+	 * @return true once the catalog has been loaded from MongoDB, rather than only restored from a snapshot
+	 */
+	public boolean isFresh() {
+		return fresh;
+	}
+
+	/**
+	 * @return a counter that changes every time the catalog changes
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @param id the video ID
+	 * @return the video, or empty if it is not in the catalog
+	 */
+	public Optional<Video> get(String id) {
+		return Optional.ofNullable(snapshot.byId.get(id));
+	}
+
+	/**
+	 * @return every video, in database order
+	 */
+	public List<Video> getAll() {
+		return snapshot.inDatabaseOrder;
+	}
+
+	/**
+	 * @param category the category to filter by
+	 * @return videos in the category, in database order
+	 */
+	public List<Video> getByCategory(String category) {
+		return snapshot.categoryLists.getOrDefault(category, List.of());
+	}
+
+	/**
+	 * @param category the category to filter by
+	 * @return featured videos in the category, in database order
+	 */
+	public List<Video> getFeatured(String category) {
+		return snapshot.featuredLists.getOrDefault(category, List.of());
+	}
+
+	/**
+	 * Runs a faceted browse query against the current snapshot.
+	 *
+	 * @param query the filters and page to return
+	 * @return matching videos and facet counts
+	 */
+	public BrowseResult browse(BrowseQuery query) {
+		ensureLoaded();
+		Snapshot s = snapshot;
+
+		BitSet genre = anyOf(s.byGenre, query.genres());
+		BitSet category = anyOf(s.byCategory, query.categories());
+		BitSet year = range(s.byYear, query.minYear(), query.maxYear());
+		BitSet price = range(query.buyPrice() ? s.byBuyPrice : s.byRentPrice, query.minPrice(), query.maxPrice());
+		BitSet featured = query.featured() == null ? null : query.featured() ? s.featured : s.notFeatured;
+
+		BitSet matches = and(s.all, genre, category, year, price, featured);
+
+		List<Video> page = new ArrayList<>();
+		int skipped = 0;
+		for (int i = matches.nextSetBit(0); i >= 0 && page.size() < query.limit(); i = matches.nextSetBit(i + 1)) {
+			if (skipped++ >= query.offset()) {
+				page.add(s.videos[i]);
+			}
+		}
+
+		Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+		facets.put("genre", counts(s.byGenre, and(s.all, category, year, price, featured)));
+		facets.put("category", counts(s.byCategory, and(s.all, genre, year, price, featured)));
+		facets.put("year", counts(s.byYear, and(s.all, genre, category, price, featured)));
+		Map<String, Integer> featuredCounts = new LinkedHashMap<>();
+		BitSet withoutFeatured = and(s.all, genre, category, year, price);
+		featuredCounts.put("true", intersectionSize(withoutFeatured, s.featured));
+		featuredCounts.put("false", intersectionSize(withoutFeatured, s.notFeatured));
+		facets.put("featured", featuredCounts);
+
+		return new BrowseResult(matches.cardinality(), page, facets);
+	}
+
+	// Loading is left to loadOnStartup and reconcileIfStale, so requests never queue behind a full load
+	private void ensureLoaded() {
+		if (!loaded) {
+			throw new DataAccessResourceFailureException("The video catalog is not loaded yet");
+		}
+	}
+
+	private void publish() {
+		snapshot = Snapshot.build(videos.values());
+		version++;
+	}
+
+	private static BitSet anyOf(Map<String, BitSet> index, Set<String> values) {
+		if (values == null || values.isEmpty()) {
+			return null;
+		}
+		BitSet union = new BitSet();
+		for (String value : values) {
+			BitSet bits = index.get(value);
+			if (bits != null) {
+				union.or(bits);
+			}
+		}
+		return union;
+	}
+
+	private static <K extends Comparable<K>> BitSet range(NavigableMap<K, BitSet> index, K min, K max) {
+		if (min == null && max == null) {
+			return null;
+		}
+		NavigableMap<K, BitSet> slice = index;
+		if (min != null && max != null) {
+			slice = min.compareTo(max) > 0 ? new TreeMap<>() : index.subMap(min, true, max, true);
+		} else if (min != null) {
+			slice = index.tailMap(min, true);
+		} else {
+			slice = index.headMap(max, true);
+		}
+		BitSet union = new BitSet();
+		for (BitSet bits : slice.values()) {
+			union.or(bits);
+		}
+		return union;
+	}
+
+	private static BitSet and(BitSet all, BitSet... filters) {
+		BitSet result = (BitSet) all.clone();
+		for (BitSet filter : filters) {
+			if (filter != null) {
+				result.and(filter);
+			}
+		}
+		return result;
+	}
+
+	private static int intersectionSize(BitSet a, BitSet b) {
+		BitSet copy = (BitSet) a.clone();
+		copy.and(b);
+		return copy.cardinality();
+	}
+
+	private static Map<String, Integer> counts(Map<?, BitSet> index, BitSet base) {
+		Map<String, Integer> counts = new LinkedHashMap<>();
+		index.forEach((value, bits) -> {
+			int count = intersectionSize(base, bits);
+			if (count > 0) {
+				counts.put(String.valueOf(value), count);
+			}
+		});
+		return counts;
+	}
+
+	/**
+	 * Immutable catalog view. Bit i in every bitmap refers to videos[i]; videos are ordered by title.
+	 * The plain lists keep database order.
+	 */
+	private static final class Snapshot {
+		final Video[] videos;
+		final List<Video> inDatabaseOrder;
+		final Map<String, List<Video>> categoryLists = new HashMap<>();
+		final Map<String, List<Video>> featuredLists = new HashMap<>();
+		final Map<String, Video> byId = new HashMap<>();
+		final BitSet all;
+		final Map<String, BitSet> byGenre = new TreeMap<>();
+		final Map<String, BitSet> byCategory = new TreeMap<>();
+		final NavigableMap<Integer, BitSet> byYear = new TreeMap<>();
+		final NavigableMap<Double, BitSet> byRentPrice = new TreeMap<>();
+		final NavigableMap<Double, BitSet> byBuyPrice = new TreeMap<>();
+		final BitSet featured = new BitSet();
+		final BitSet notFeatured = new BitSet();
+
+		private Snapshot(Video[] videos, List<Video> inDatabaseOrder) {
+			this.videos = videos;
+			this.inDatabaseOrder = inDatabaseOrder;
+			this.all = new BitSet(videos.length);
+			all.set(0, videos.length);
+		}
+
+		static Snapshot build(Collection<Video> catalog) {
+			List<Video> inDatabaseOrder = List.copyOf(catalog);
+			Video[] sorted = inDatabaseOrder.toArray(new Video[0]);
+			Arrays.sort(sorted, Comparator.comparing(Video::getTitle, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+
+			Snapshot s = new Snapshot(sorted, inDatabaseOrder);
+			Map<String, List<Video>> byCategory = new HashMap<>();
+			Map<String, List<Video>> featuredByCategory = new HashMap<>();
+			for (Video v : inDatabaseOrder) {
+				if (v.getCategory() != null) {
+					byCategory.computeIfAbsent(v.getCategory(), k -> new ArrayList<>()).add(v);
+					if (v.isFeatured()) {
+						featuredByCategory.computeIfAbsent(v.getCategory(), k -> new ArrayList<>()).add(v);
+					}
+				}
+			}
+			byCategory.forEach((category, list) -> s.categoryLists.put(category, List.copyOf(list)));
+			featuredByCategory.forEach((category, list) -> s.featuredLists.put(category, List.copyOf(list)));
+
+			for (int i = 0; i < sorted.length; i++) {
+				Video v = sorted[i];
+				s.byId.put(v.getId(), v);
+				if (v.getGenre() != null) {
+					s.byGenre.computeIfAbsent(v.getGenre(), k -> new BitSet()).set(i);
+				}
+				if (v.getCategory() != null) {
+					s.byCategory.computeIfAbsent(v.getCategory(), k -> new BitSet()).set(i);
+				}
+				s.byYear.computeIfAbsent(v.getYear(), k -> new BitSet()).set(i);
+				s.byRentPrice.computeIfAbsent(v.getRentPrice(), k -> new BitSet()).set(i);
+				s.byBuyPrice.computeIfAbsent(v.getBuyPrice(), k -> new BitSet()).set(i);
+				(v.isFeatured() ? s.featured : s.notFeatured).set(i);
+			}
+			return s;
+		}
+	}
+}
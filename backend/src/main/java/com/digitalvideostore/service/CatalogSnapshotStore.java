@@ -0,0 +1,222 @@
+package com.digitalvideostore.service;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.digitalvideostore.model.Video;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * CatalogSnapshotStore
+ *
+ * - Persists the in-memory catalog to a compact binary file on local disk whenever it changes.
+ * - At boot, memory-maps that file and restores the catalog before the web server starts accepting requests,
+ *   so category and featured reads are served from memory immediately after a restart.
+ * - CatalogIndex then reconciles with MongoDB in the background once the application is ready.
+ *
+ * The file lives in app.data-dir, which has to be a persistent disk for restarts to benefit; on a wiped
+ * filesystem every boot simply loads from MongoDB as before.
+ *
+ * File layout: magic, format version, video count, one record per video (in database order),
+ * then a CRC32 of everything before it.
+ */
+@Service
+@Lazy(false)	// Must restore before traffic even when lazy initialization is enabled
+public class CatalogSnapshotStore implements SmartInitializingSingleton {
+
+	private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotStore.class);
+
+	private static final int MAGIC = 0x44565343;	// "DVSC"
+	private static final int FORMAT_VERSION = 2;
+
+	@Autowired
+	private CatalogIndex catalogIndex;
+
+	@Value("${app.catalog.snapshot-file}")
+	private String snapshotFile;
+
+	private Path file;
+
+	// Catalog version the file on disk was written from; guarded by "this"
+	private long writtenVersion = -1;
+
+	/**
+	 * Restores the catalog from the snapshot file. Runs after all singletons are created, before the web server starts.
+	 */
+	@Override
+	public void afterSingletonsInstantiated() {
+		file = Paths.get(snapshotFile).toAbsolutePath().normalize();
+		if (!Files.isRegularFile(file)) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		try {
+			List<Video> videos = read(file);
+			catalogIndex.restore(videos);
+			synchronized (this) {
+				writtenVersion = catalogIndex.getVersion();
+			}
+			log.info("Restored {} videos from catalog snapshot in {} ms", videos.size(), (System.nanoTime() - start) / 1_000_000);
+		} catch (IOException | RuntimeException e) {
+			log.warn("Ignoring unreadable catalog snapshot {}", file, e);
+		}
+	}
+
+	/**
+	 * Writes the snapshot if the catalog changed since the last write.
+	 * Polling the catalog version debounces bursts of edits into a single write.
+	 */
+	@Scheduled(fixedDelayString = "${app.catalog.snapshot-interval-ms:5000}")
+	public synchronized void writeIfChanged() {
+		if (file == null || !catalogIndex.isFresh()) {
+			// Never overwrite a good snapshot with data that has not been confirmed by MongoDB
+			return;
+		}
+
+		long version = catalogIndex.getVersion();
+		if (version == writtenVersion) {
+			return;
+		}
+
+		try {
+			write(file, catalogIndex.getAll());
+			writtenVersion = version;
+		} catch (IOException e) {
+			log.warn("Could not write catalog snapshot {}", file, e);
+		}
+	}
+
+	@PreDestroy
+	void writeOnShutdown() {
+		writeIfChanged();
+	}
+
+	// Package-private for tests
+	static void write(Path file, List<Video> videos) throws IOException {
+		Files.createDirectories(file.getParent());
+		Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			CRC32 crc = new CRC32();
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new CheckedOutputStream(Files.newOutputStream(tmp), crc), 64 * 1024))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(videos.size());
+				for (Video v : videos) {
+					writeString(out, v.getId());
+					writeString(out, v.getTitle());
+					writeString(out, v.getGenre());
+					writeString(out, v.getCategory());
+					out.writeInt(v.getYear());
+					writeString(out, v.getDescription());
+					writeString(out, v.getPhrase());
+					writeString(out, v.getCardImage());
+					writeString(out, v.getLargePoster());
+					out.writeDouble(v.getRentPrice());
+					out.writeDouble(v.getBuyPrice());
+					out.writeBoolean(v.isFeatured());
+					writeString(out, v.getMediaFile());
+					out.writeLong(v.getRevision());
+				}
+				out.flush();
+				// The checksum covers every byte above; it is written after the CheckedOutputStream has seen them
+				long checksum = crc.getValue();
+				out.writeLong(checksum);
+			}
+			Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	static List<Video> read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < 20 || size > Integer.MAX_VALUE) {
+				throw new IOException("Unexpected snapshot size " + size);
+			}
+
+			MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			int bodyLength = (int) size - Long.BYTES;
+
+			CRC32 crc = new CRC32();
+			crc.update(buf.duplicate().limit(bodyLength));
+			if (crc.getValue() != buf.getLong(bodyLength)) {
+				throw new IOException("Snapshot checksum mismatch");
+			}
+
+			buf.limit(bodyLength);
+			if (buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION) {
+				throw new IOException("Not a catalog snapshot, or written by an incompatible version");
+			}
+
+			int count = buf.getInt();
+			List<Video> videos = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				Video v = new Video();
+				v.setId(readString(buf));
+				v.setTitle(readString(buf));
+				v.setGenre(readString(buf));
+				v.setCategory(readString(buf));
+				v.setYear(buf.getInt());
+				v.setDescription(readString(buf));
+				v.setPhrase(readString(buf));
+				v.setCardImage(readString(buf));
+				v.setLargePoster(readString(buf));
+				v.setRentPrice(buf.getDouble());
+				v.setBuyPrice(buf.getDouble());
+				v.setFeatured(buf.get() != 0);
+				v.setMediaFile(readString(buf));
+				v.setRevision(buf.getLong());
+				videos.add(v);
+			}
+			return videos;
+		}
+	}
+
+	// Length-prefixed UTF-8; -1 encodes null. Unlike writeUTF this has no 64 KB limit.
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buf) {
+		int length = buf.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buf.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,310 @@
+package com.digitalvideostore.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import com.digitalvideostore.model.Video;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * ChangeStreamSubscriber
+ *
+ * - Follows the MongoDB change stream on "videos", so writes made by any node reach every node's in-memory catalog
+ *   (as VideoChangeEvent).
+ * - Video changes this node already applied are recognized by comparing with the catalog and skipped, as are
+ *   changes older than the catalog's copy (by revision), e.g. the first of two quick saves made on this node.
+ * - Resume tokens are saved to local disk, next to the catalog snapshot, so a restart continues where it stopped.
+ * - If there is no token, or the server no longer has the history after it, the data is fully reloaded instead.
+ *
+ * Change streams need a replica set (a single-node one is enough; see scripts/local-replica-set.sh).
+ * Against a standalone server the subscriber logs a warning and stays off.
+ */
+@Service
+public class ChangeStreamSubscriber {
+
+	private static final Logger log = LoggerFactory.getLogger(ChangeStreamSubscriber.class);
+
+	// Server error codes meaning the resume token can no longer be used
+	private static final Set<Integer> HISTORY_LOST_CODES = Set.of(
+		260,	// InvalidResumeToken
+		280,	// ChangeStreamFatalError
+		286		// ChangeStreamHistoryLost
+	);
+
+	// "The $changeStream stage is only supported on replica sets"
+	private static final int NOT_REPLICA_SET_CODE = 40573;
+
+	private static final long MAX_BACKOFF_MS = 30_000;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private CatalogIndex catalogIndex;
+
+	@Autowired
+	private CatalogEventService catalogEventService;
+
+	@Value("${app.changes.enabled:true}")
+	private boolean enabled;
+
+	@Value("${app.changes.token-dir}")
+	private String tokenDir;
+
+	// Also how often an idle stream saves its token and checks for shutdown
+	@Value("${app.changes.max-await-ms:1000}")
+	private long maxAwaitMs;
+
+	private final List<Thread> threads = new ArrayList<>();
+	private volatile boolean running;
+
+	/**
+	 * What to do with the changes of one collection.
+	 */
+	private interface ChangeHandler {
+
+		void apply(ChangeStreamDocument<Document> change);
+
+		// Called when changes may have been missed
+		void refresh();
+	}
+
+	/**
+	 * Starts the watcher thread once the application is ready.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public synchronized void start() {
+		if (!enabled || running) {
+			return;
+		}
+		running = true;
+		threads.add(watch("videos", new VideoChanges()));
+	}
+
+	@PreDestroy
+	synchronized void stop() throws InterruptedException {
+		running = false;
+		for (Thread thread : threads) {
+			thread.join(maxAwaitMs * 2);
+		}
+	}
+
+	private Thread watch(String collection, ChangeHandler handler) {
+		return Thread.ofPlatform()
+			.name("change-stream-" + collection)
+			.daemon()
+			.start(() -> follow(collection, handler));
+	}
+
+	/**
+	 * Follows one collection until shutdown, reconnecting with backoff after errors.
+	 */
+	private void follow(String collection, ChangeHandler handler) {
+		Path tokenFile = Paths.get(tokenDir, collection + ".resume-token").toAbsolutePath().normalize();
+		BsonDocument token = readToken(tokenFile);
+		boolean refresh = token == null;
+		long backoffMs = 1000;
+
+		while (running) {
+			ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(collection).watch()
+				.fullDocument(FullDocument.UPDATE_LOOKUP)
+				.maxAwaitTime(maxAwaitMs, TimeUnit.MILLISECONDS);
+			if (token != null) {
+				stream = stream.resumeAfter(token);
+			}
+
+			try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+				if (refresh) {
+					// Reload only once the stream is open, so nothing written in between is missed
+					handler.refresh();
+					refresh = false;
+				}
+				backoffMs = 1000;
+
+				BsonDocument saved = token;
+				long savedAt = System.currentTimeMillis();
+				while (running) {
+					ChangeStreamDocument<Document> change = cursor.tryNext();
+					if (change != null && change.getOperationType() == OperationType.INVALIDATE) {
+						// Collection dropped or renamed; this stream cannot continue
+						log.warn("The {} change stream was invalidated; reloading", collection);
+						token = null;
+						deleteToken(tokenFile);
+						refresh = true;
+						break;
+					}
+					if (change != null && change.getDocumentKey() != null) {
+						// Collection-level events (drop, rename) carry no document and end with an invalidate
+						handler.apply(change);
+					}
+
+					// Also advances while idle, so a restart does not replay unrelated oplog history.
+					// Saved when the stream goes quiet, and at most once per await interval while busy.
+					token = cursor.getResumeToken();
+					long now = System.currentTimeMillis();
+					if (token != null && !token.equals(saved) && (change == null || now - savedAt >= maxAwaitMs)) {
+						writeToken(tokenFile, token);
+						saved = token;
+						savedAt = now;
+					}
+				}
+				if (token != null && !token.equals(saved)) {
+					writeToken(tokenFile, token);
+				}
+			} catch (MongoException e) {
+				if (e.getCode() == NOT_REPLICA_SET_CODE) {
+					log.warn("MongoDB is not a replica set; changes made on other nodes will not be picked up on {}", collection);
+					return;
+				}
+				if (HISTORY_LOST_CODES.contains(e.getCode())) {
+					log.warn("Cannot resume the {} change stream ({}); reloading", collection, e.getMessage());
+					token = null;
+					deleteToken(tokenFile);
+					refresh = true;
+					continue;
+				}
+				backoffMs = pause(collection, e, backoffMs);
+			} catch (RuntimeException e) {
+				backoffMs = pause(collection, e, backoffMs);
+			}
+		}
+	}
+
+	private long pause(String collection, RuntimeException e, long backoffMs) {
+		if (!running) {
+			return backoffMs;
+		}
+		log.warn("{} change stream failed; retrying in {} ms", collection, backoffMs, e);
+		try {
+			Thread.sleep(backoffMs);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+		return Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+	}
+
+	/**
+	 * Applies video changes to every node's catalog, and through it to SSE subscribers and trending lists.
+	 */
+	private class VideoChanges implements ChangeHandler {
+
+		@Override
+		public void apply(ChangeStreamDocument<Document> change) {
+			String id = idOf(change);
+			Document document = change.getFullDocument();
+
+			switch (change.getOperationType()) {
+				case INSERT, UPDATE, REPLACE -> {
+					if (document == null) {
+						// Deleted again before the lookup; the delete event follows
+						return;
+					}
+					Video video = mongoTemplate.getConverter().read(Video.class, document);
+					Optional<Video> existing = catalogIndex.isLoaded() ? catalogIndex.get(id) : Optional.empty();
+					if (existing.isPresent() && video.getRevision() < existing.get().getRevision()) {
+						// The catalog already holds a later save
+						return;
+					}
+					if (existing.isPresent() && sameDocument(existing.get(), document)) {
+						// Written by this node, or already applied
+						return;
+					}
+					VideoChangeEvent.Type type = existing.isPresent() ? VideoChangeEvent.Type.UPDATED : VideoChangeEvent.Type.ADDED;
+					eventPublisher.publishEvent(new VideoChangeEvent(type, id, video));
+				}
+				case DELETE -> {
+					if (catalogIndex.isLoaded() && catalogIndex.get(id).isEmpty()) {
+						return;
+					}
+					eventPublisher.publishEvent(new VideoChangeEvent(VideoChangeEvent.Type.DELETED, id, null));
+				}
+				default -> {
+				}
+			}
+		}
+
+		@Override
+		public void refresh() {
+			catalogIndex.reload();
+			catalogEventService.broadcastReset();
+		}
+
+		private boolean sameDocument(Video video, Document document) {
+			Document current = new Document();
+			mongoTemplate.getConverter().write(video, current);
+			return current.equals(document);
+		}
+	}
+
+	private static String idOf(ChangeStreamDocument<Document> change) {
+		BsonValue id = change.getDocumentKey().get("_id");
+		if (id.isObjectId()) {
+			return id.asObjectId().getValue().toHexString();
+		}
+		return id.isString() ? id.asString().getValue() : id.toString();
+	}
+
+	private static BsonDocument readToken(Path file) {
+		try {
+			return Files.isRegularFile(file) ? BsonDocument.parse(Files.readString(file)) : null;
+		} catch (IOException | RuntimeException e) {
+			log.warn("Ignoring unreadable resume token {}", file, e);
+			return null;
+		}
+	}
+
+	private static void writeToken(Path file, BsonDocument token) {
+		try {
+			Files.createDirectories(file.getParent());
+			Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+			try {
+				Files.writeString(tmp, token.toJson());
+				Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(tmp);
+			}
+		} catch (IOException e) {
+			log.warn("Could not save resume token {}", file, e);
+		}
+	}
+
+	private static void deleteToken(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			log.warn("Could not delete resume token {}", file, e);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.digitalvideostore.service;
+
+import java.time.Duration;
+
+/**
+ * Minimal circuit breaker.
+ *
+ * - CLOSED: calls are allowed; the circuit opens after the configured number of consecutive failures.
+ * - OPEN: calls are refused until the open duration has passed.
+ * - HALF_OPEN: a single probe call is allowed; its success closes the circuit, its failure opens it again.
+ */
+public class CircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+	private final long openMillis;
+
+	// All guarded by "this"
+	private State state = State.CLOSED;
+	private int consecutiveFailures;
+	private long openedAt;
+
+	/**
+	 * @param failureThreshold consecutive failures that open the circuit
+	 * @param openDuration how long the circuit stays open before a probe is allowed
+	 */
+	public CircuitBreaker(int failureThreshold, Duration openDuration) {
+		this.failureThreshold = failureThreshold;
+		this.openMillis = openDuration.toMillis();
+	}
+
+	/**
+	 * Asks for permission to make a call. Every granted call must be followed by onSuccess or onFailure.
+	 *
+	 * @return true if the call may proceed
+	 */
+	public synchronized boolean tryAcquire() {
+		switch (state) {
+			case CLOSED:
+				return true;
+			case OPEN:
+				if (System.currentTimeMillis() - openedAt >= openMillis) {
+					state = State.HALF_OPEN;
+					return true;
+				}
+				return false;
+			default:
+				// A probe is already in flight
+				return false;
+		}
+	}
+
+	/**
+	 * Records a successful call and closes the circuit.
+	 */
+	public synchronized void onSuccess() {
+		consecutiveFailures = 0;
+		state = State.CLOSED;
+	}
+
+	/**
+	 * Records a failed call; opens the circuit if the threshold is reached or the probe failed.
+	 */
+	public synchronized void onFailure() {
+		consecutiveFailures++;
+		if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+			state = State.OPEN;
+			openedAt = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * @return the current state
+	 */
+	public synchronized State getState() {
+		return state;
+	}
+}
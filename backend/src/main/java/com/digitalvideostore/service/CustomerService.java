@@ -3,23 +3,54 @@ package com.digitalvideostore.service;
 import com.digitalvideostore.model.Customer;
 import com.digitalvideostore.repository.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * CustomerService
  *
  * - Handles business logic for creating, updating, and retrieving customers.
  * - Delegates persistence to the CustomerRepository.
+ * - Pages the customer directory with keyset cursors and answers prefix searches from the searchKeys index.
  */
 @Service
 public class CustomerService {
 
+	// Fields the directory can be sorted by; each has a matching {field, _id} index
+	public static final Set<String> SORT_FIELDS = Set.of("id", "firstName", "lastName", "email");
+
+	private static final int MAX_SEARCH_TERMS = 4;
+	private static final int BACKFILL_BATCH_SIZE = 1000;
+
 	@Autowired
 	private CustomerRepository customerRepository;
 
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	/**
+	 * One page of the customer directory.
+	 *
+	 * @param customers the customers on this page
+	 * @param nextCursor cursor for the following page, or null if this is the last page
+	 */
+	public record CustomerPage(List<Customer> customers, String nextCursor) {
+	}
+
 	/**
 	 * Creates and saves a new customer.
 	 *
@@ -35,16 +66,110 @@ public class CustomerService {
 		if (existing != null) {
 			throw new IllegalArgumentException("A customer with this email already exists.");
 		}
+		customer.setSearchKeys(searchKeysFor(customer));
 		return customerRepository.save(customer);
 	}
 
 	/**
-	 * Retrieves a list of all customers.
+	 * Retrieves one page of customers, ordered by the given field and then by ID.
 	 *
-	 * @return list of all customers in the database
+	 * - Uses keyset pagination: the cursor holds the last row's sort value and ID, so every page
+	 *   is an index range scan no matter how deep the client pages.
+	 *
+	 * @param sort one of SORT_FIELDS
+	 * @param descending true to sort in descending order
+	 * @param cursor the nextCursor of the previous page, or null for the first page
+	 * @param limit maximum number of customers to return
+	 * @return the page and the cursor for the next one
+	 * @throws IllegalArgumentException if the sort field or cursor is invalid
 	 */
-	public List<Customer> getAllCustomers() {
-		return customerRepository.findAll();
+	public CustomerPage getCustomerPage(String sort, boolean descending, String cursor, int limit) {
+		if (!SORT_FIELDS.contains(sort)) {
+			throw new IllegalArgumentException("Sort must be one of " + SORT_FIELDS + ".");
+		}
+
+		Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+		Query query = new Query();
+		if (cursor != null && !cursor.isBlank()) {
+			String[] position = decodeCursor(cursor);
+			String lastValue = position[0];
+			String lastId = position[1];
+			if (sort.equals("id")) {
+				query.addCriteria(descending ? Criteria.where("id").lt(lastId) : Criteria.where("id").gt(lastId));
+			} else {
+				query.addCriteria(new Criteria().orOperator(
+					descending ? Criteria.where(sort).lt(lastValue) : Criteria.where(sort).gt(lastValue),
+					new Criteria().andOperator(
+						Criteria.where(sort).is(lastValue),
+						descending ? Criteria.where("id").lt(lastId) : Criteria.where("id").gt(lastId))));
+			}
+		}
+		query.with(sort.equals("id") ? Sort.by(direction, "id") : Sort.by(direction, sort, "id"));
+
+		// Fetch one extra row to know whether another page exists
+		query.limit(limit + 1);
+		List<Customer> customers = mongoTemplate.find(query, Customer.class);
+
+		String nextCursor = null;
+		if (customers.size() > limit) {
+			customers = new ArrayList<>(customers.subList(0, limit));
+			Customer last = customers.get(limit - 1);
+			nextCursor = encodeCursor(sortValue(last, sort), last.getId());
+		}
+		return new CustomerPage(customers, nextCursor);
+	}
+
+	/**
+	 * Finds customers whose first name, last name or email starts with each word of the query (case-insensitive).
+	 *
+	 * - "jo sm" matches "John Smith" and "Joan Smithers".
+	 * - Runs as anchored regex range scans on the multikey searchKeys index.
+	 *
+	 * @param q the search text
+	 * @param limit maximum number of customers to return
+	 * @return matching customers
+	 * @throws IllegalArgumentException if the query has no search terms
+	 */
+	public List<Customer> searchCustomers(String q, int limit) {
+		String[] terms = q == null ? new String[0] : q.trim().toLowerCase(Locale.ROOT).split("\\s+");
+		List<Criteria> prefixes = new ArrayList<>();
+		for (String term : terms) {
+			if (!term.isEmpty() && prefixes.size() < MAX_SEARCH_TERMS) {
+				prefixes.add(Criteria.where("searchKeys").regex("^" + escapeRegex(term)));
+			}
+		}
+		if (prefixes.isEmpty()) {
+			throw new IllegalArgumentException("Search query must not be empty.");
+		}
+
+		Query query = new Query(prefixes.size() == 1 ? prefixes.get(0) : new Criteria().andOperator(prefixes));
+		query.limit(limit);
+		return mongoTemplate.find(query, Customer.class);
+	}
+
+	/**
+	 * Fills in searchKeys for customers saved before search existed, in bulk batches.
+	 *
+	 * @return number of customers updated
+	 */
+	public long backfillSearchKeys() {
+		long updated = 0;
+		while (true) {
+			Query missing = Query.query(Criteria.where("searchKeys").exists(false)).limit(BACKFILL_BATCH_SIZE);
+			missing.fields().include("firstName", "lastName", "email");
+			List<Customer> batch = mongoTemplate.find(missing, Customer.class);
+			if (batch.isEmpty()) {
+				return updated;
+			}
+
+			BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, Customer.class);
+			for (Customer customer : batch) {
+				ops.updateOne(Query.query(Criteria.where("id").is(customer.getId())),
+					Update.update("searchKeys", searchKeysFor(customer)));
+			}
+			ops.execute();
+			updated += batch.size();
+		}
 	}
 
 	/**
@@ -85,6 +210,7 @@ public class CustomerService {
 			throw new IllegalArgumentException("Customer with ID " + id + " not found.");
 		}
 		updatedCustomer.setId(id);
+		updatedCustomer.setSearchKeys(searchKeysFor(updatedCustomer));
 		return customerRepository.save(updatedCustomer);
 	}
 
@@ -100,4 +226,53 @@ public class CustomerService {
 		}
 		customerRepository.deleteById(id);
 	}
+
+	private static List<String> searchKeysFor(Customer customer) {
+		List<String> keys = new ArrayList<>(3);
+		for (String value : new String[] {customer.getFirstName(), customer.getLastName(), customer.getEmail()}) {
+			if (value != null && !value.isBlank()) {
+				keys.add(value.trim().toLowerCase(Locale.ROOT));
+			}
+		}
+		return keys;
+	}
+
+	private static String sortValue(Customer customer, String sort) {
+		return switch (sort) {
+			case "firstName" -> customer.getFirstName();
+			case "lastName" -> customer.getLastName();
+			case "email" -> customer.getEmail();
+			default -> customer.getId();
+		};
+	}
+
+	private static String encodeCursor(String value, String id) {
+		String raw = (value == null ? "" : value) + "\u0000" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String[] decodeCursor(String cursor) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int separator = raw.lastIndexOf('\u0000');
+			if (separator < 0) {
+				throw new IllegalArgumentException("Invalid cursor.");
+			}
+			return new String[] {raw.substring(0, separator), raw.substring(separator + 1)};
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid cursor.");
+		}
+	}
+
+	// Backslash-escapes regex metacharacters so the pattern stays a plain, index-friendly prefix
+	private static String escapeRegex(String text) {
+		StringBuilder escaped = new StringBuilder(text.length() + 8);
+		for (char c : text.toCharArray()) {
+			if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+				escaped.append('\\');
+			}
+			escaped.append(c);
+		}
+		return escaped.toString();
+	}
 }
\ No newline at end of file
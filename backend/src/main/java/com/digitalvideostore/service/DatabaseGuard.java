@@ -0,0 +1,215 @@
+package com.digitalvideostore.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * DatabaseGuard
+ *
+ * - Wraps MongoDB calls with a per-call timeout, a circuit breaker and a cap on calls in flight,
+ *   so a slow or unreachable database fails requests fast instead of tying up request threads.
+ * - Reads can supply last-known-good data; it is returned instead of an error and the response is marked stale.
+ * - Only connection, timeout and other transient data access errors count as database failures.
+ * - Full catalog loads at boot and in the background get a longer timeout of their own and are kept out of
+ *   the breaker, so a cold first connection or a large result does not open the circuit for request traffic.
+ */
+@Service
+public class DatabaseGuard {
+
+	private static final Logger log = LoggerFactory.getLogger(DatabaseGuard.class);
+
+	/**
+	 * Request attribute set when any part of the response was served from last-known-good data.
+	 */
+	public static final String STALE_ATTRIBUTE = DatabaseGuard.class.getName() + ".stale";
+
+	@Value("${app.resilience.call-timeout-ms:1000}")
+	private long callTimeoutMs;
+
+	@Value("${app.resilience.failure-threshold:5}")
+	private int failureThreshold;
+
+	@Value("${app.resilience.open-duration-ms:10000}")
+	private long openDurationMs;
+
+	@Value("${app.resilience.max-concurrent-calls:64}")
+	private int maxConcurrentCalls;
+
+	@Value("${app.resilience.bulk-read-timeout-ms:30000}")
+	private long bulkReadTimeoutMs;
+
+	private CircuitBreaker breaker;
+	private Semaphore permits;
+	private ExecutorService executor;
+
+	@PostConstruct
+	void init() {
+		breaker = new CircuitBreaker(failureThreshold, Duration.ofMillis(openDurationMs));
+		permits = new Semaphore(maxConcurrentCalls);
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Runs a read with the per-call timeout.
+	 *
+	 * @param query the database call
+	 * @return the query result
+	 * @throws DataAccessResourceFailureException if the circuit is open or too many calls are in flight
+	 * @throws QueryTimeoutException if the call took longer than the timeout
+	 */
+	public <T> T call(Supplier<T> query) {
+		if (!permits.tryAcquire()) {
+			throw new DataAccessResourceFailureException("Too many MongoDB calls in flight");
+		}
+		if (!breaker.tryAcquire()) {
+			permits.release();
+			throw new DataAccessResourceFailureException("MongoDB circuit is open");
+		}
+
+		// The call keeps its permit until it really finishes, even after the caller has given up on it
+		CompletableFuture<T> future = CompletableFuture.supplyAsync(query, executor);
+		future.whenComplete((value, e) -> permits.release());
+
+		try {
+			T value = future.get(callTimeoutMs, TimeUnit.MILLISECONDS);
+			breaker.onSuccess();
+			return value;
+		} catch (TimeoutException e) {
+			breaker.onFailure();
+			throw new QueryTimeoutException("MongoDB call timed out after " + callTimeoutMs + " ms", e);
+		} catch (ExecutionException e) {
+			throw failed(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			breaker.onFailure();
+			throw new QueryTimeoutException("Interrupted while waiting for MongoDB", e);
+		}
+	}
+
+	/**
+	 * Runs a large background read, such as a full catalog load, with the longer bulk-read timeout.
+	 * It is neither refused by nor counted in the circuit breaker, and takes no in-flight permit.
+	 *
+	 * @param query the database call
+	 * @return the query result
+	 * @throws QueryTimeoutException if the call took longer than the bulk-read timeout
+	 */
+	public <T> T bulkRead(Supplier<T> query) {
+		CompletableFuture<T> future = CompletableFuture.supplyAsync(query, executor);
+		try {
+			return future.get(bulkReadTimeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new QueryTimeoutException("MongoDB bulk read timed out after " + bulkReadTimeoutMs + " ms", e);
+		} catch (ExecutionException e) {
+			throw unwrap(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new QueryTimeoutException("Interrupted while waiting for MongoDB", e);
+		}
+	}
+
+	/**
+	 * Falls back to last-known-good data if an already guarded read fails. Used when the guard sits further in,
+	 * e.g. inside a SingleFlight loader, so waiters share one guarded call.
+	 *
+	 * @param guardedRead a read that goes through call() somewhere inside
+	 * @param lastKnownGood returns data to serve instead, or null if there is none
+	 * @return the read's result, or the last-known-good data (and the current request is marked stale)
+	 */
+	public <T> T orStale(Supplier<T> guardedRead, Supplier<T> lastKnownGood) {
+		try {
+			return guardedRead.get();
+		} catch (DataAccessResourceFailureException | TransientDataAccessException e) {
+			T fallback = lastKnownGood.get();
+			if (fallback == null) {
+				throw e;
+			}
+			log.debug("Serving last-known-good data: {}", e.getMessage());
+			markStale();
+			return fallback;
+		}
+	}
+
+	/**
+	 * Runs a write on the calling thread. Fails fast while the circuit is open, but is not cut off by
+	 * the per-call timeout, since a write abandoned by the caller could still be applied.
+	 *
+	 * @param write the database call
+	 * @return the write's result
+	 * @throws DataAccessResourceFailureException if the circuit is open
+	 */
+	public <T> T write(Supplier<T> write) {
+		if (!breaker.tryAcquire()) {
+			throw new DataAccessResourceFailureException("MongoDB circuit is open");
+		}
+		try {
+			T value = write.get();
+			breaker.onSuccess();
+			return value;
+		} catch (RuntimeException e) {
+			throw failed(e);
+		}
+	}
+
+	/**
+	 * Marks the current request's response as served from last-known-good data. No-op outside a request.
+	 */
+	public void markStale() {
+		RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+		if (attributes != null) {
+			attributes.setAttribute(STALE_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+		}
+	}
+
+	/**
+	 * @return true while calls are being refused
+	 */
+	public boolean isOpen() {
+		return breaker.getState() == CircuitBreaker.State.OPEN;
+	}
+
+	private RuntimeException failed(Throwable cause) {
+		if (cause instanceof DataAccessResourceFailureException || cause instanceof TransientDataAccessException) {
+			breaker.onFailure();
+		} else {
+			// The database answered; the error is about the request, not its health
+			breaker.onSuccess();
+		}
+		return unwrap(cause);
+	}
+
+	private static RuntimeException unwrap(Throwable cause) {
+		if (cause instanceof RuntimeException runtime) {
+			return runtime;
+		}
+		if (cause instanceof Error error) {
+			throw error;
+		}
+		return new IllegalStateException(cause);
+	}
+}
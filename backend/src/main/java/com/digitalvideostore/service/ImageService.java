@@ -0,0 +1,407 @@
+package com.digitalvideostore.service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import com.digitalvideostore.model.Video;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * ImageService
+ *
+ * - Produces resized (and, when supported, WebP) variants of a video's card image or large poster.
+ * - Variants are rendered once on first request and cached on local disk; later requests only touch the cached file.
+ * - Requested widths are snapped up to a fixed set of buckets so the cache stays small and CDN-friendly.
+ * - Source artwork is read from app.images.source-dir when present (local development); otherwise it is downloaded
+ *   once from app.images.source-url (the deployed frontend, which hosts /images) and kept next to the variants.
+ */
+@Service
+public class ImageService {
+
+	/**
+	 * Widths a variant can be rendered at. Anything in between is rounded up to the next bucket.
+	 */
+	private static final int[] WIDTH_BUCKETS = {160, 240, 320, 480, 640, 960, 1280, 1920};
+
+	private static final MediaType IMAGE_WEBP = MediaType.parseMediaType("image/webp");
+
+	@Autowired
+	private VideoService videoService;
+
+	@Autowired
+	private CatalogIndex catalogIndex;
+
+	// Root the catalog's image paths (e.g. "/images/cards/tenet.jpg") are resolved against
+	@Value("${app.images.source-dir}")
+	private String sourceDir;
+
+	// Base URL the same image paths are fetched from when they are not on local disk; empty to disable
+	@Value("${app.images.source-url:}")
+	private String sourceUrl;
+
+	// Where rendered variants are written
+	@Value("${app.images.cache-dir}")
+	private String cacheDir;
+
+	@Value("${app.images.quality:0.82}")
+	private float quality;
+
+	private Path sourceRoot;
+	private Path cacheRoot;
+	private boolean webpSupported;
+	private HttpClient httpClient;
+
+	// One lock per variant file so concurrent first requests render it only once
+	private final ConcurrentHashMap<String, Object> renderLocks = new ConcurrentHashMap<>();
+
+	/**
+	 * A rendered variant ready to be served from disk.
+	 *
+	 * @param file the cached file
+	 * @param contentType the image media type
+	 * @param etag a strong validator derived from the source file and the variant parameters
+	 */
+	public record ImageVariant(Path file, MediaType contentType, String etag) {
+	}
+
+	@PostConstruct
+	void init() throws IOException {
+		sourceRoot = Paths.get(sourceDir).toAbsolutePath().normalize();
+		cacheRoot = Paths.get(cacheDir).toAbsolutePath().normalize();
+		Files.createDirectories(cacheRoot);
+		httpClient = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.followRedirects(HttpClient.Redirect.NORMAL)
+			.build();
+
+		// Decode/encode in memory instead of spilling to temp files
+		ImageIO.setUseCache(false);
+
+		// The WebP encoder ships native code; if it cannot load on this platform we fall back to JPEG
+		webpSupported = canEncodeWebp();
+	}
+
+	/**
+	 * Returns a variant of a video's artwork, rendering and caching it on first use.
+	 *
+	 * @param videoId the video whose artwork is requested
+	 * @param variant "card" for the card image or "poster" for the large poster
+	 * @param width requested width in pixels, or null for the original width
+	 * @param preferWebp true if the client accepts WebP
+	 * @return the cached variant, or empty if the video or its source image does not exist
+	 * @throws IllegalArgumentException if the variant name is unknown
+	 * @throws IOException if the source image cannot be decoded or the variant cannot be written
+	 */
+	public Optional<ImageVariant> getVariant(String videoId, String variant, Integer width, boolean preferWebp)
+			throws IOException {
+		// Every image request resolves the video, cached variant or not, so skip MongoDB once the catalog is in memory
+		Optional<Video> video = catalogIndex.isLoaded() ? catalogIndex.get(videoId) : videoService.getVideoById(videoId);
+		if (video.isEmpty()) {
+			return Optional.empty();
+		}
+
+		String imagePath = switch (variant) {
+			case "card" -> video.get().getCardImage();
+			case "poster" -> video.get().getLargePoster();
+			default -> throw new IllegalArgumentException("Unknown image variant: " + variant);
+		};
+
+		Path source = resolveSource(imagePath);
+		if (source != null && !Files.isRegularFile(source)) {
+			source = fetchFromOrigin(sourceRoot.relativize(source));
+		}
+		if (source == null || !Files.isRegularFile(source)) {
+			return Optional.empty();
+		}
+
+		boolean webp = preferWebp && webpSupported;
+		MediaType contentType = webp ? IMAGE_WEBP : MediaType.IMAGE_JPEG;
+		int bucket = width == null ? 0 : snapWidth(width);
+
+		// The fingerprint changes whenever the source file is replaced, so stale variants are never served
+		String fingerprint = fingerprint(source);
+		String fileName = variant + "-" + (bucket == 0 ? "orig" : bucket) + "-" + fingerprint + (webp ? ".webp" : ".jpg");
+		Path target = cacheRoot.resolve(safeSegment(videoId)).resolve(fileName);
+
+		if (!Files.exists(target)) {
+			// Formats ImageIO cannot decode (e.g. AVIF) are passed through untouched
+			if (!isDecodable(source)) {
+				return Optional.of(new ImageVariant(source, sniffContentType(source), "\"" + variant + "-" + fingerprint + "\""));
+			}
+
+			Object lock = renderLocks.computeIfAbsent(target.toString(), k -> new Object());
+			synchronized (lock) {
+				try {
+					if (!Files.exists(target)) {
+						render(source, target, bucket, webp);
+					}
+				} finally {
+					renderLocks.remove(target.toString(), lock);
+				}
+			}
+		}
+
+		return Optional.of(new ImageVariant(target, contentType, "\"" + fileName + "\""));
+	}
+
+	/**
+	 * Resolves a catalog image path against the source root, refusing anything that escapes it.
+	 */
+	private Path resolveSource(String imagePath) {
+		if (imagePath == null || imagePath.isBlank()) {
+			return null;
+		}
+		String relative = imagePath.replace('\\', '/').replaceFirst("^/+", "").replaceFirst("^public/", "");
+		Path resolved = sourceRoot.resolve(relative).normalize();
+		return resolved.startsWith(sourceRoot) ? resolved : null;
+	}
+
+	/**
+	 * Downloads a source image from app.images.source-url into the cache, once.
+	 *
+	 * @param relative the image path relative to the source root
+	 * @return the downloaded file, or null if there is no origin or it does not have the image
+	 */
+	private Path fetchFromOrigin(Path relative) throws IOException {
+		if (sourceUrl.isBlank()) {
+			return null;
+		}
+		Path target = cacheRoot.resolve("origin").resolve(relative).normalize();
+		if (!target.startsWith(cacheRoot)) {
+			return null;
+		}
+		if (Files.isRegularFile(target)) {
+			return target;
+		}
+
+		String path = relative.toString().replace('\\', '/');
+		URI uri;
+		try {
+			uri = URI.create(sourceUrl.replaceFirst("/+$", "") + new URI(null, null, "/" + path, null).getRawPath());
+		} catch (URISyntaxException e) {
+			return null;
+		}
+
+		Object lock = renderLocks.computeIfAbsent(target.toString(), k -> new Object());
+		synchronized (lock) {
+			try {
+				if (Files.isRegularFile(target)) {
+					return target;
+				}
+				Files.createDirectories(target.getParent());
+				Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+				try {
+					HttpResponse<Path> response = httpClient.send(
+						HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(20)).GET().build(),
+						HttpResponse.BodyHandlers.ofFile(tmp));
+					if (response.statusCode() != 200) {
+						return null;
+					}
+					Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+					return target;
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while downloading " + uri, e);
+				} finally {
+					Files.deleteIfExists(tmp);
+				}
+			} finally {
+				renderLocks.remove(target.toString(), lock);
+			}
+		}
+	}
+
+	private static int snapWidth(int width) {
+		for (int bucket : WIDTH_BUCKETS) {
+			if (width <= bucket) {
+				return bucket;
+			}
+		}
+		return WIDTH_BUCKETS[WIDTH_BUCKETS.length - 1];
+	}
+
+	private static String fingerprint(Path source) throws IOException {
+		CRC32 crc = new CRC32();
+		String key = source + "|" + Files.getLastModifiedTime(source).toMillis() + "|" + Files.size(source);
+		crc.update(key.getBytes(StandardCharsets.UTF_8));
+		return Long.toHexString(crc.getValue());
+	}
+
+	private static boolean isDecodable(Path source) throws IOException {
+		try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+			return in != null && ImageIO.getImageReaders(in).hasNext();
+		}
+	}
+
+	/**
+	 * Detects the real format from the file's magic bytes; catalog files named ".jpg" are often WebP, PNG or AVIF.
+	 */
+	private static MediaType sniffContentType(Path source) throws IOException {
+		byte[] head = new byte[12];
+		int read;
+		try (InputStream in = Files.newInputStream(source)) {
+			read = in.readNBytes(head, 0, head.length);
+		}
+		String ascii = new String(head, 0, read, StandardCharsets.ISO_8859_1);
+
+		if (read >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+			return MediaType.IMAGE_JPEG;
+		}
+		if (ascii.startsWith("\u0089PNG")) {
+			return MediaType.IMAGE_PNG;
+		}
+		if (read == 12 && ascii.startsWith("RIFF") && ascii.endsWith("WEBP")) {
+			return IMAGE_WEBP;
+		}
+		if (read == 12 && ascii.substring(4).startsWith("ftypavi")) {
+			return MediaType.parseMediaType("image/avif");
+		}
+		return MediaType.APPLICATION_OCTET_STREAM;
+	}
+
+	private boolean canEncodeWebp() {
+		if (!ImageIO.getImageWritersByMIMEType(IMAGE_WEBP.toString()).hasNext()) {
+			return false;
+		}
+		Path probe = null;
+		try {
+			probe = Files.createTempFile(cacheRoot, "webp-probe", ".webp");
+			write(new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB), probe, true);
+			return Files.size(probe) > 0;
+		} catch (IOException | RuntimeException | LinkageError e) {
+			return false;
+		} finally {
+			if (probe != null) {
+				try {
+					Files.deleteIfExists(probe);
+				} catch (IOException ignored) {
+					// best effort
+				}
+			}
+		}
+	}
+
+	private static String safeSegment(String value) {
+		return value.replaceAll("[^A-Za-z0-9_-]", "_");
+	}
+
+	/**
+	 * Decodes the source, scales it down to the target width (never up) and writes it atomically.
+	 */
+	private void render(Path source, Path target, int width, boolean webp) throws IOException {
+		BufferedImage original = ImageIO.read(source.toFile());
+		if (original == null) {
+			throw new IOException("Unsupported image format: " + source.getFileName());
+		}
+
+		int targetWidth = width == 0 ? original.getWidth() : Math.min(width, original.getWidth());
+		BufferedImage scaled = scale(original, targetWidth);
+
+		Files.createDirectories(target.getParent());
+		Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			write(scaled, tmp, webp);
+			Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	/**
+	 * Halves the image until it is within 2x of the target, then does a final bilinear pass.
+	 * Stepping down this way keeps thumbnails sharp without the cost of a bicubic filter.
+	 */
+	private static BufferedImage scale(BufferedImage image, int targetWidth) {
+		int targetHeight = Math.max(1, (int) Math.round((double) image.getHeight() * targetWidth / image.getWidth()));
+		BufferedImage current = image;
+		int w = image.getWidth();
+		int h = image.getHeight();
+
+		do {
+			w = Math.max(targetWidth, w / 2);
+			h = Math.max(targetHeight, h / 2);
+
+			// Draw onto an opaque RGB canvas; JPEG has no alpha channel
+			BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = next.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+				g.drawImage(current, 0, 0, w, h, null);
+			} finally {
+				g.dispose();
+			}
+			current = next;
+		} while (w != targetWidth || h != targetHeight);
+
+		return current;
+	}
+
+	private void write(BufferedImage image, Path file, boolean webp) throws IOException {
+		Iterator<ImageWriter> writers = webp
+			? ImageIO.getImageWritersByMIMEType(IMAGE_WEBP.toString())
+			: ImageIO.getImageWritersByFormatName("jpeg");
+		if (!writers.hasNext()) {
+			throw new IOException("No image writer available for " + (webp ? "WebP" : "JPEG"));
+		}
+
+		ImageWriter writer = writers.next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		if (param.canWriteCompressed()) {
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			String[] types = param.getCompressionTypes();
+			if (types != null && types.length > 0) {
+				String chosen = types[0];
+				for (String type : types) {
+					if (type.toLowerCase(Locale.ROOT).contains("lossy")) {
+						chosen = type;
+					}
+				}
+				param.setCompressionType(chosen);
+			}
+			param.setCompressionQuality(quality);
+		}
+		if (!webp && param.canWriteProgressive()) {
+			param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+		}
+
+		try (ImageOutputStream out = ImageIO.createImageOutputStream(file.toFile())) {
+			writer.setOutput(out);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+	}
+}
@@ -0,0 +1,357 @@
+package com.digitalvideostore.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.digitalvideostore.model.Video;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * MediaStreamService
+ *
+ * - Resolves a video's media file from local storage.
+ * - Streams ranges with servlet non-blocking I/O: the request thread returns right away, and the container calls
+ *   back whenever the socket can take more, so no thread is held while a client downloads or pauses.
+ * - Every stream holds one of this node's stream slots until it completes, and reports its throughput.
+ * - Streams that make no progress for the idle timeout are aborted, so stalled clients cannot keep slots forever.
+ */
+@Service
+public class MediaStreamService {
+
+	private static final Logger log = LoggerFactory.getLogger(MediaStreamService.class);
+
+	// Copy buffer per stream; bounds memory to max-concurrent-streams * 64 KB
+	private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+	@Autowired
+	private VideoService videoService;
+
+	@Autowired
+	private CatalogIndex catalogIndex;
+
+	@Value("${app.media.root}")
+	private String mediaRootDir;
+
+	@Value("${app.media.max-concurrent-streams:64}")
+	private int maxConcurrentStreams;
+
+	@Value("${app.media.stream-idle-timeout-ms:30000}")
+	private long streamIdleTimeoutMs;
+
+	private Path mediaRoot;
+	private Semaphore permits;
+
+	private final AtomicLong streamIds = new AtomicLong();
+	private final AtomicLong completedStreams = new AtomicLong();
+	private final AtomicLong abortedStreams = new AtomicLong();
+	private final AtomicLong rejectedStreams = new AtomicLong();
+	private final AtomicLong totalBytesSent = new AtomicLong();
+	private final ConcurrentHashMap<Long, StreamSlot> activeStreams = new ConcurrentHashMap<>();
+
+	/**
+	 * A media file on local storage.
+	 *
+	 * @param path absolute path of the file
+	 * @param length file size in bytes
+	 * @param lastModified last modification time in epoch millis
+	 * @param contentType media type derived from the file extension
+	 */
+	public record MediaFile(Path path, long length, long lastModified, MediaType contentType) {
+	}
+
+	/**
+	 * Throughput of a stream that is still being served.
+	 */
+	public record ActiveStream(long streamId, String videoId, long bytesSent, long elapsedMillis, long bytesPerSecond) {
+	}
+
+	/**
+	 * Node-wide streaming counters plus a view of every active stream.
+	 */
+	public record StreamStats(int maxConcurrentStreams, int activeStreams, long completedStreams, long abortedStreams,
+			long rejectedStreams, long totalBytesSent, List<ActiveStream> streams) {
+	}
+
+	@PostConstruct
+	void init() {
+		mediaRoot = Paths.get(mediaRootDir).toAbsolutePath().normalize();
+		permits = new Semaphore(maxConcurrentStreams);
+	}
+
+	/**
+	 * Looks up the media file for a video.
+	 *
+	 * @param videoId the video ID
+	 * @return the media file, or empty if the video does not exist, has no media, or the file is missing
+	 * @throws IOException if the file attributes cannot be read
+	 */
+	public Optional<MediaFile> findMedia(String videoId) throws IOException {
+		// Every range request resolves the video, so skip MongoDB once the catalog is in memory
+		Optional<Video> video = catalogIndex.isLoaded() ? catalogIndex.get(videoId) : videoService.getVideoById(videoId);
+		if (video.isEmpty() || video.get().getMediaFile() == null || video.get().getMediaFile().isBlank()) {
+			return Optional.empty();
+		}
+
+		// Refuse paths that escape the media root
+		Path file = mediaRoot.resolve(video.get().getMediaFile().replaceFirst("^/+", "")).normalize();
+		if (!file.startsWith(mediaRoot) || !Files.isRegularFile(file)) {
+			return Optional.empty();
+		}
+
+		MediaType contentType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+			.orElse(MediaType.APPLICATION_OCTET_STREAM);
+		return Optional.of(new MediaFile(file, Files.size(file), Files.getLastModifiedTime(file).toMillis(), contentType));
+	}
+
+	/**
+	 * Reserves one of this node's stream slots.
+	 *
+	 * - The slot is released when the transfer finishes; if the caller does not start one, it must close the slot.
+	 *
+	 * @param videoId the video being streamed
+	 * @return a slot, or empty if the node is already serving its maximum number of streams
+	 */
+	public Optional<StreamSlot> tryOpenStream(String videoId) {
+		if (!permits.tryAcquire()) {
+			rejectedStreams.incrementAndGet();
+			return Optional.empty();
+		}
+		StreamSlot slot = new StreamSlot(streamIds.incrementAndGet(), videoId);
+		activeStreams.put(slot.id, slot);
+		return Optional.of(slot);
+	}
+
+	/**
+	 * Returns a snapshot of the streaming counters.
+	 *
+	 * @return current stream statistics
+	 */
+	public StreamStats getStats() {
+		List<ActiveStream> streams = new ArrayList<>(activeStreams.size());
+		for (StreamSlot slot : activeStreams.values()) {
+			streams.add(slot.snapshot());
+		}
+		return new StreamStats(maxConcurrentStreams, streams.size(), completedStreams.get(), abortedStreams.get(),
+			rejectedStreams.get(), totalBytesSent.get(), streams);
+	}
+
+	/**
+	 * Aborts streams whose client has not accepted any data for the idle timeout.
+	 */
+	@Scheduled(fixedDelayString = "${app.media.idle-check-interval-ms:5000}")
+	public void abortIdleStreams() {
+		long idleNanos = TimeUnit.MILLISECONDS.toNanos(streamIdleTimeoutMs);
+		long now = System.nanoTime();
+		for (StreamSlot slot : activeStreams.values()) {
+			if (now - slot.lastProgressNanos > idleNanos) {
+				log.debug("Aborting stream {} for video {}: idle for more than {} ms", slot.id, slot.videoId, streamIdleTimeoutMs);
+				slot.aborted = true;
+				slot.finish();
+			}
+		}
+	}
+
+	/**
+	 * One in-flight stream. Holds a concurrency permit until closed.
+	 */
+	public final class StreamSlot implements AutoCloseable {
+
+		private final long id;
+		private final String videoId;
+		private final long startNanos = System.nanoTime();
+		private final AtomicLong bytesSent = new AtomicLong();
+		private final AtomicBoolean finishing = new AtomicBoolean();
+		private volatile long lastProgressNanos = startNanos;
+		private volatile boolean aborted;
+		private volatile AsyncContext async;
+		private boolean closed;
+
+		private StreamSlot(long id, String videoId) {
+			this.id = id;
+			this.videoId = videoId;
+		}
+
+		/**
+		 * Starts sending a byte range of the file asynchronously. The request thread can return as soon as this does;
+		 * the slot closes itself when the response completes, fails or is aborted.
+		 *
+		 * @param file the media file to read
+		 * @param start offset of the first byte to send
+		 * @param length number of bytes to send
+		 * @param request the current request, put into async mode
+		 * @throws IOException if the file cannot be opened; the slot has been released
+		 */
+		public void transfer(Path file, long start, long length, HttpServletRequest request) throws IOException {
+			FileChannel channel;
+			try {
+				channel = FileChannel.open(file, StandardOpenOption.READ);
+			} catch (IOException e) {
+				aborted = true;
+				close();
+				throw e;
+			}
+			try {
+				async = request.startAsync();
+				// Stalled clients are handled by the idle check, not by a limit on the whole download
+				async.setTimeout(0);
+				async.addListener(new AsyncListener() {
+					@Override
+					public void onComplete(AsyncEvent event) {
+						closeQuietly(channel);
+						close();
+					}
+
+					@Override
+					public void onTimeout(AsyncEvent event) {
+						aborted = true;
+						finish();
+					}
+
+					@Override
+					public void onError(AsyncEvent event) {
+						aborted = true;
+						finish();
+					}
+
+					@Override
+					public void onStartAsync(AsyncEvent event) {
+					}
+				});
+				ServletOutputStream out = async.getResponse().getOutputStream();
+				out.setWriteListener(new RangeWriter(channel, start, length, out));
+			} catch (IOException | RuntimeException e) {
+				aborted = true;
+				if (async != null) {
+					// onComplete closes the channel and the slot
+					finish();
+				} else {
+					closeQuietly(channel);
+					close();
+				}
+				throw e;
+			}
+		}
+
+		// Completes the async response once; safe to call from the writer, the listener and the idle check
+		void finish() {
+			if (async != null && finishing.compareAndSet(false, true)) {
+				async.complete();
+			}
+		}
+
+		/**
+		 * Writes as much of the range as the socket accepts each time the container reports it writable.
+		 */
+		private final class RangeWriter implements WriteListener {
+
+			private final FileChannel channel;
+			private final ServletOutputStream out;
+			private final byte[] buffer = new byte[COPY_BUFFER_SIZE];
+			private final ByteBuffer wrapped = ByteBuffer.wrap(buffer);
+			private long position;
+			private long remaining;
+
+			RangeWriter(FileChannel channel, long start, long length, ServletOutputStream out) {
+				this.channel = channel;
+				this.out = out;
+				this.position = start;
+				this.remaining = length;
+			}
+
+			@Override
+			public void onWritePossible() throws IOException {
+				while (out.isReady()) {
+					if (remaining == 0) {
+						// Only reached once the last write has been flushed
+						finish();
+						return;
+					}
+					wrapped.clear().limit((int) Math.min(remaining, buffer.length));
+					int read = channel.read(wrapped, position);
+					if (read <= 0) {
+						// File was truncated underneath us; stop rather than spin
+						throw new IOException("Media file for video " + videoId + " ended early");
+					}
+					out.write(buffer, 0, read);
+					position += read;
+					remaining -= read;
+					bytesSent.addAndGet(read);
+					totalBytesSent.addAndGet(read);
+					lastProgressNanos = System.nanoTime();
+				}
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				// Players routinely drop connections while seeking
+				aborted = true;
+				finish();
+			}
+		}
+
+		private static void closeQuietly(FileChannel channel) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				log.debug("Could not close media file", e);
+			}
+		}
+
+		private ActiveStream snapshot() {
+			long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+			long bytes = bytesSent.get();
+			return new ActiveStream(id, videoId, bytes, elapsedMillis, bytes * 1000 / elapsedMillis);
+		}
+
+		@Override
+		public synchronized void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			activeStreams.remove(id);
+			permits.release();
+
+			if (aborted) {
+				abortedStreams.incrementAndGet();
+			} else {
+				completedStreams.incrementAndGet();
+			}
+
+			if (log.isDebugEnabled()) {
+				ActiveStream stats = snapshot();
+				log.debug("Stream {} for video {} {} after {} bytes in {} ms ({} KB/s)", id, videoId,
+					aborted ? "aborted" : "completed", stats.bytesSent(), stats.elapsedMillis(), stats.bytesPerSecond() / 1024);
+			}
+		}
+	}
+}
@@ -0,0 +1,206 @@
+package com.digitalvideostore.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.digitalvideostore.model.PlaybackProgress;
+import com.digitalvideostore.repository.PlaybackProgressRepository;
+import com.mongodb.bulk.BulkWriteError;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * PlaybackProgressService
+ *
+ * - Buffers player heartbeats in memory, keeping only the latest position per (customer, video).
+ * - The buffer is indexed by customer, so reading one customer's progress never scans other customers' entries.
+ * - Flushes the buffer to MongoDB on a fixed interval as unordered bulk upserts.
+ * - An upsert only replaces a stored position that is older, so a late flush from another node cannot overwrite
+ *   a newer one.
+ * - The buffer is bounded; heartbeats for new pairs are refused while it is full.
+ * - Whatever is still buffered is flushed when the application shuts down.
+ */
+@Service
+public class PlaybackProgressService {
+
+	private static final Logger log = LoggerFactory.getLogger(PlaybackProgressService.class);
+
+	// MongoDB error code for a duplicate _id, raised when a conditional upsert finds a newer stored position
+	private static final int DUPLICATE_KEY = 11000;
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private PlaybackProgressRepository playbackProgressRepository;
+
+	@Value("${app.progress.max-pending:100000}")
+	private int maxPending;
+
+	@Value("${app.progress.batch-size:1000}")
+	private int batchSize;
+
+	// Latest unsaved heartbeat per customerId, then videoId; a customer's map is dropped once it is empty
+	private final ConcurrentHashMap<String, ConcurrentHashMap<String, PlaybackProgress>> pending = new ConcurrentHashMap<>();
+
+	// Entries across all customers, kept alongside the map so the bound check does not have to count them
+	private final AtomicInteger pendingCount = new AtomicInteger();
+
+	/**
+	 * Records a heartbeat. Repeated heartbeats for the same video replace each other until the next flush.
+	 *
+	 * @param customerId the customer watching
+	 * @param heartbeat the reported video and position
+	 * @return true if buffered, false if the buffer is full and the caller should retry later
+	 */
+	public boolean recordHeartbeat(String customerId, PlaybackProgress heartbeat) {
+		String videoId = heartbeat.getVideoId();
+		Map<String, PlaybackProgress> buffered = pending.get(customerId);
+		if (pendingCount.get() >= maxPending && (buffered == null || !buffered.containsKey(videoId))) {
+			return false;
+		}
+
+		heartbeat.setId(customerId + ":" + videoId);
+		heartbeat.setCustomerId(customerId);
+		heartbeat.setUpdatedAt(Instant.now());
+		// compute keeps the insert from racing with a flush dropping this customer's emptied map
+		pending.compute(customerId, (id, videos) -> {
+			if (videos == null) {
+				videos = new ConcurrentHashMap<>();
+			}
+			if (videos.put(videoId, heartbeat) == null) {
+				pendingCount.incrementAndGet();
+			}
+			return videos;
+		});
+		return true;
+	}
+
+	/**
+	 * Returns a customer's playback positions, including heartbeats that are not flushed yet.
+	 *
+	 * @param customerId the customer ID
+	 * @return the latest position for every video the customer has watched
+	 */
+	public List<PlaybackProgress> getProgress(String customerId) {
+		Map<String, PlaybackProgress> merged = new LinkedHashMap<>();
+		for (PlaybackProgress saved : playbackProgressRepository.findByCustomerId(customerId)) {
+			merged.put(saved.getVideoId(), saved);
+		}
+		Map<String, PlaybackProgress> buffered = pending.get(customerId);
+		if (buffered != null) {
+			// Another node may have stored a newer position than the one buffered here
+			for (PlaybackProgress progress : buffered.values()) {
+				merged.merge(progress.getVideoId(), progress, (saved, mine) -> isNewer(saved, mine) ? saved : mine);
+			}
+		}
+		return new ArrayList<>(merged.values());
+	}
+
+	/**
+	 * Writes all buffered heartbeats to MongoDB in bulk upserts of at most batchSize documents.
+	 *
+	 * - Entries stay in the buffer, and visible to getProgress, until their batch has been written.
+	 * - After a successful batch, each entry is removed unless a newer heartbeat has replaced it meanwhile.
+	 * - If a batch fails, its failed entries stay buffered for the next flush. Retrying an entry that did reach
+	 *   MongoDB is harmless, because the upsert only replaces older positions.
+	 */
+	@Scheduled(fixedDelayString = "${app.progress.flush-interval-ms:5000}")
+	public synchronized void flush() {
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		List<PlaybackProgress> batch = new ArrayList<>(batchSize);
+		for (Map<String, PlaybackProgress> videos : pending.values()) {
+			for (PlaybackProgress progress : videos.values()) {
+				batch.add(progress);
+				if (batch.size() >= batchSize) {
+					writeBatch(batch);
+					batch = new ArrayList<>(batchSize);
+				}
+			}
+		}
+		if (!batch.isEmpty()) {
+			writeBatch(batch);
+		}
+	}
+
+	@PreDestroy
+	void flushOnShutdown() {
+		flush();
+	}
+
+	private void writeBatch(List<PlaybackProgress> batch) {
+		BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, PlaybackProgress.class);
+		for (PlaybackProgress progress : batch) {
+			// When the stored position is newer nothing matches, and the upsert's insert fails on the existing _id
+			ops.upsert(Query.query(Criteria.where("_id").is(progress.getId()).and("updatedAt").lt(progress.getUpdatedAt())),
+				new Update()
+					.set("customerId", progress.getCustomerId())
+					.set("videoId", progress.getVideoId())
+					.set("positionSeconds", progress.getPositionSeconds())
+					.set("durationSeconds", progress.getDurationSeconds())
+					.set("updatedAt", progress.getUpdatedAt()));
+		}
+
+		Set<Integer> failed = new HashSet<>();
+		try {
+			ops.execute();
+		} catch (BulkOperationException e) {
+			for (BulkWriteError error : e.getErrors()) {
+				if (error.getCode() != DUPLICATE_KEY) {
+					failed.add(error.getIndex());
+				}
+			}
+			if (!failed.isEmpty()) {
+				log.warn("Failed to flush {} of {} playback positions; will retry on the next flush", failed.size(),
+					batch.size(), e);
+			}
+		} catch (RuntimeException e) {
+			log.warn("Failed to flush {} playback positions; will retry on the next flush", batch.size(), e);
+			return;
+		}
+
+		for (int i = 0; i < batch.size(); i++) {
+			if (!failed.contains(i)) {
+				removeFlushed(batch.get(i));
+			}
+		}
+	}
+
+	// Removes a written entry unless a newer heartbeat replaced it, and drops the customer's map once it is empty
+	private void removeFlushed(PlaybackProgress progress) {
+		pending.computeIfPresent(progress.getCustomerId(), (id, videos) -> {
+			if (videos.remove(progress.getVideoId(), progress)) {
+				pendingCount.decrementAndGet();
+			}
+			return videos.isEmpty() ? null : videos;
+		});
+	}
+
+	private static boolean isNewer(PlaybackProgress a, PlaybackProgress b) {
+		return a.getUpdatedAt() != null && b.getUpdatedAt() != null && a.getUpdatedAt().isAfter(b.getUpdatedAt());
+	}
+}
@@ -0,0 +1,307 @@
+package com.digitalvideostore.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.digitalvideostore.model.Video;
+import com.digitalvideostore.repository.VideoRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * PopularityService
+ *
+ * - Counts views, rentals and purchases per video in striped LongAdder counters, so hot titles do not contend.
+ * - Periodically drains the counters into the "video_stats" collection with bulk $inc upserts.
+ * - Maintains an exponentially decayed popularity score per video and serves trending lists from memory.
+ * - Scores are persisted as additive weights, so every node's traffic adds up in MongoDB; each node reloads
+ *   the combined scores periodically.
+ *
+ * Time is split into periods of PERIOD_HALF_LIVES half-lives. An event's weight is its score scaled back to the
+ * start of its period, stored under "weights.{period}", so any node can add to it with $inc. A score is
+ * the sum of its weights, each decayed from its period start to the current time.
+ */
+@Service
+public class PopularityService {
+
+	private static final Logger log = LoggerFactory.getLogger(PopularityService.class);
+
+	private static final String STATS_COLLECTION = "video_stats";
+
+	// Weights are scaled by at most 2^PERIOD_HALF_LIVES, far from double overflow
+	private static final int PERIOD_HALF_LIVES = 32;
+
+	// How much each kind of event contributes to the score
+	private static final double VIEW_WEIGHT = 1;
+	private static final double RENT_WEIGHT = 5;
+	private static final double BUY_WEIGHT = 10;
+
+	// Scores below this are dropped from memory; the next event recreates the entry
+	private static final double MIN_SCORE = 0.01;
+
+	private static final int MAX_TRENDING = 50;
+
+	// Key for the trending list across all categories
+	private static final String ALL_CATEGORIES = "";
+
+	@Autowired
+	private MongoTemplate mongoTemplate;
+
+	@Autowired
+	private VideoRepository videoRepository;
+
+	@Value("${app.popularity.half-life-hours:24}")
+	private double halfLifeHours;
+
+	private final ConcurrentHashMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+	// Rebuilt on every flush; readers never lock
+	private volatile Map<String, List<Video>> trending = Map.of();
+
+	private long lastScoredAt = System.currentTimeMillis();
+
+	/**
+	 * Pending event counts and the decayed score for one video.
+	 */
+	private static final class Counters {
+		final LongAdder views = new LongAdder();
+		final LongAdder rents = new LongAdder();
+		final LongAdder buys = new LongAdder();
+		volatile Video video;
+		double score;	// Only touched by the flush, which is synchronized
+
+		Counters(Video video) {
+			this.video = video;
+		}
+	}
+
+	/**
+	 * Records that a video's details were viewed.
+	 *
+	 * @param video the viewed video
+	 */
+	public void recordView(Video video) {
+		counters(video).views.increment();
+	}
+
+	/**
+	 * Records that a video was rented.
+	 *
+	 * @param video the rented video
+	 */
+	public void recordRent(Video video) {
+		counters(video).rents.increment();
+	}
+
+	/**
+	 * Records that a video was bought.
+	 *
+	 * @param video the purchased video
+	 */
+	public void recordBuy(Video video) {
+		counters(video).buys.increment();
+	}
+
+	/**
+	 * Keeps trending lists showing the current title, price and artwork after an edit,
+	 * and forgets deleted videos. Persisted totals stay in "video_stats".
+	 *
+	 * @param event the change published by VideoService
+	 */
+	@EventListener
+	public void onVideoChange(VideoChangeEvent event) {
+		if (event.type() == VideoChangeEvent.Type.DELETED) {
+			counters.remove(event.videoId());
+			return;
+		}
+		Counters existing = counters.get(event.videoId());
+		if (existing != null) {
+			existing.video = event.video();
+		}
+	}
+
+	/**
+	 * Returns the highest-scoring videos, as of the last flush.
+	 *
+	 * @param category the category to filter by, or null for all categories
+	 * @param limit maximum number of videos to return
+	 * @return videos ordered by decayed popularity score, highest first
+	 */
+	public List<Video> getTrending(String category, int limit) {
+		List<Video> list = trending.getOrDefault(category == null ? ALL_CATEGORIES : category, List.of());
+		return list.subList(0, Math.min(limit, list.size()));
+	}
+
+	private Counters counters(Video video) {
+		// Plain get first so the hot path does not allocate a lambda or take a bin lock
+		Counters existing = counters.get(video.getId());
+		return existing != null ? existing : counters.computeIfAbsent(video.getId(), id -> new Counters(video));
+	}
+
+	/**
+	 * Drains the counters, decays and updates the scores, writes the deltas with bulk $inc upserts,
+	 * and rebuilds the trending lists.
+	 */
+	@Scheduled(fixedDelayString = "${app.popularity.flush-interval-ms:10000}")
+	public synchronized void flush() {
+		long now = System.currentTimeMillis();
+		decayScores(now);
+
+		long period = now / periodMillis();
+		double growth = Math.pow(2, (now - period * periodMillis()) / halfLifeMillis());
+
+		BulkOperations ops = mongoTemplate.bulkOps(BulkMode.UNORDERED, STATS_COLLECTION);
+		Map<Counters, long[]> drained = new HashMap<>();
+		Map<Counters, Double> newScores = new HashMap<>();
+
+		for (Map.Entry<String, Counters> entry : counters.entrySet()) {
+			Counters c = entry.getValue();
+			long views = c.views.sumThenReset();
+			long rents = c.rents.sumThenReset();
+			long buys = c.buys.sumThenReset();
+
+			if (views == 0 && rents == 0 && buys == 0) {
+				if (c.score < MIN_SCORE) {
+					counters.remove(entry.getKey(), c);
+				}
+				continue;
+			}
+
+			// The deltas only count towards the score once they are persisted
+			double delta = views * VIEW_WEIGHT + rents * RENT_WEIGHT + buys * BUY_WEIGHT;
+			drained.put(c, new long[] {views, rents, buys});
+			newScores.put(c, c.score + delta);
+			// Weights from two periods back are worth less than 2^-32 of their original score and are dropped
+			ops.upsert(Query.query(Criteria.where("_id").is(entry.getKey())), new Update()
+				.inc("views", views)
+				.inc("rents", rents)
+				.inc("buys", buys)
+				.inc("weights." + period, delta * growth)
+				.unset("weights." + (period - 2)));
+		}
+
+		if (!drained.isEmpty()) {
+			try {
+				ops.execute();
+				newScores.forEach((c, score) -> c.score = score);
+			} catch (RuntimeException e) {
+				// Put the deltas back so they are written, and scored, with the next flush
+				log.warn("Failed to flush popularity counters for {} videos", drained.size(), e);
+				drained.forEach((c, deltas) -> {
+					c.views.add(deltas[0]);
+					c.rents.add(deltas[1]);
+					c.buys.add(deltas[2]);
+				});
+			}
+		}
+
+		rebuildTrending();
+	}
+
+	@PreDestroy
+	void flushOnShutdown() {
+		flush();
+	}
+
+	/**
+	 * Loads the combined scores of all nodes from "video_stats", so trending survives restarts
+	 * and reflects traffic served by other nodes.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${app.popularity.reload-interval-ms:60000}",
+		initialDelayString = "${app.popularity.reload-interval-ms:60000}")
+	public synchronized void loadScores() {
+		try {
+			long now = System.currentTimeMillis();
+			Map<String, Double> scores = new HashMap<>();
+			for (Document stats : mongoTemplate.findAll(Document.class, STATS_COLLECTION)) {
+				double score = storedScore(stats, now);
+				if (score >= MIN_SCORE) {
+					scores.put(stats.get("_id").toString(), score);
+				}
+			}
+
+			decayScores(now);
+			for (Video video : videoRepository.findAllById(scores.keySet())) {
+				counters(video).score = scores.get(video.getId());
+			}
+			rebuildTrending();
+		} catch (RuntimeException e) {
+			log.warn("Could not load popularity scores; trending keeps its current scores", e);
+		}
+	}
+
+	// Sums a video's weights, each decayed from the start of its period to now
+	private double storedScore(Document stats, long now) {
+		double score = 0;
+		Document weights = stats.get("weights", Document.class);
+		if (weights != null) {
+			for (Map.Entry<String, Object> weight : weights.entrySet()) {
+				long periodStart = Long.parseLong(weight.getKey()) * periodMillis();
+				if (weight.getValue() instanceof Number value) {
+					score += value.doubleValue() * Math.pow(0.5, (now - periodStart) / halfLifeMillis());
+				}
+			}
+		}
+		return score;
+	}
+
+	private void decayScores(long now) {
+		double decay = Math.pow(0.5, (now - lastScoredAt) / halfLifeMillis());
+		lastScoredAt = now;
+		for (Counters c : counters.values()) {
+			c.score *= decay;
+		}
+	}
+
+	private double halfLifeMillis() {
+		return halfLifeHours * 3_600_000;
+	}
+
+	private long periodMillis() {
+		return (long) (halfLifeMillis() * PERIOD_HALF_LIVES);
+	}
+
+	private void rebuildTrending() {
+		List<Counters> ranked = new ArrayList<>(counters.values());
+		ranked.sort(Comparator.comparingDouble((Counters c) -> c.score).reversed());
+
+		Map<String, List<Video>> next = new HashMap<>();
+		for (Counters c : ranked) {
+			Video video = c.video;
+			List<Video> all = next.computeIfAbsent(ALL_CATEGORIES, k -> new ArrayList<>());
+			if (all.size() < MAX_TRENDING) {
+				all.add(video);
+			}
+			if (video.getCategory() != null) {
+				List<Video> inCategory = next.computeIfAbsent(video.getCategory(), k -> new ArrayList<>());
+				if (inCategory.size() < MAX_TRENDING) {
+					inCategory.add(video);
+				}
+			}
+		}
+		next.replaceAll((k, list) -> List.copyOf(list));
+		trending = Map.copyOf(next);
+	}
+}
@@ -0,0 +1,86 @@
+package com.digitalvideostore.service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.dao.QueryTimeoutException;
+
+/**
+ * Coalesces concurrent loads of the same key into one.
+ *
+ * - The first caller for a key runs the loader on its own thread; callers that arrive while it is running
+ *   wait on the same future instead of issuing their own query.
+ * - Waiting callers give up after the configured timeout with a QueryTimeoutException; the load itself keeps running.
+ * - A failed load is rethrown to every caller waiting on it. Nothing is cached: the next caller after completion loads again.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	private final long timeoutMillis;
+
+	/**
+	 * @param timeout how long a waiting caller waits for the in-flight load
+	 */
+	public SingleFlight(Duration timeout) {
+		this.timeoutMillis = timeout.toMillis();
+	}
+
+	/**
+	 * Returns the loader's result, sharing one in-flight call among concurrent callers with the same key.
+	 *
+	 * @param key the key being loaded
+	 * @param loader loads the value; only called if no load for the key is in flight
+	 * @return the loaded value
+	 * @throws QueryTimeoutException if this caller waited longer than the timeout
+	 */
+	public V execute(K key, Supplier<V> loader) {
+		CompletableFuture<V> mine = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+
+		if (existing == null) {
+			try {
+				V value = loader.get();
+				mine.complete(value);
+				return value;
+			} catch (RuntimeException | Error e) {
+				mine.completeExceptionally(e);
+				throw e;
+			} finally {
+				inFlight.remove(key, mine);
+			}
+		}
+
+		try {
+			return existing.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new QueryTimeoutException("Timed out after " + timeoutMillis + " ms waiting for in-flight load of " + key, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			if (cause instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException(cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new QueryTimeoutException("Interrupted while waiting for in-flight load of " + key, e);
+		}
+	}
+
+	/**
+	 * @return number of keys currently being loaded
+	 */
+	public int inFlightCount() {
+		return inFlight.size();
+	}
+}
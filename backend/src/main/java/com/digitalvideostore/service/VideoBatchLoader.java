@@ -0,0 +1,154 @@
+package com.digitalvideostore.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Service;
+
+import com.digitalvideostore.model.Video;
+import com.digitalvideostore.repository.VideoRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * VideoBatchLoader
+ *
+ * - DataLoader-style batching for lookups by ID: every ID requested within a short window
+ *   (or until the batch is full) is resolved with a single findAllById ($in) query.
+ * - Duplicate IDs in the same window share one future.
+ * - Batches run on virtual threads, so a slow query does not hold up the next window.
+ * - Each batch query is one DatabaseGuard call, however many IDs it carries: one permit, one timeout,
+ *   and at most one breaker failure.
+ */
+@Service
+public class VideoBatchLoader {
+
+	@Autowired
+	private VideoRepository videoRepository;
+
+	@Autowired
+	private DatabaseGuard databaseGuard;
+
+	@Value("${app.videos.batch-window-ms:2}")
+	private long batchWindowMs;
+
+	@Value("${app.videos.max-batch-size:100}")
+	private int maxBatchSize;
+
+	// How long get() waits for its batch; covers the window plus the guarded query's own timeout
+	@Value("${app.videos.batch-wait-timeout-ms:2000}")
+	private long batchWaitTimeoutMs;
+
+	private final Object lock = new Object();
+
+	// IDs waiting for the current window to close; guarded by lock
+	private Map<String, CompletableFuture<Optional<Video>>> pending = new LinkedHashMap<>();
+
+	private ScheduledExecutorService timer;
+	private ExecutorService queryExecutor;
+
+	@PostConstruct
+	void init() {
+		timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("video-batch-timer").daemon().factory());
+		queryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+	}
+
+	@PreDestroy
+	void shutdown() {
+		timer.shutdown();
+		dispatch();
+		queryExecutor.close();
+	}
+
+	/**
+	 * Queues an ID for the next batch.
+	 *
+	 * @param id the video ID
+	 * @return a future completed with the video (or empty if it does not exist) when the batch query returns
+	 */
+	public CompletableFuture<Optional<Video>> load(String id) {
+		boolean full;
+		CompletableFuture<Optional<Video>> future;
+		synchronized (lock) {
+			future = pending.get(id);
+			if (future != null) {
+				return future;
+			}
+			future = new CompletableFuture<>();
+			pending.put(id, future);
+			if (pending.size() == 1) {
+				// First ID of a new window
+				timer.schedule(this::dispatch, batchWindowMs, TimeUnit.MILLISECONDS);
+			}
+			full = pending.size() >= maxBatchSize;
+		}
+		if (full) {
+			dispatch();
+		}
+		return future;
+	}
+
+	/**
+	 * Queues an ID for the next batch and waits for the result.
+	 *
+	 * @param id the video ID
+	 * @return the video, or empty if it does not exist
+	 * @throws QueryTimeoutException if the batch did not return within the wait timeout
+	 */
+	public Optional<Video> get(String id) {
+		try {
+			return load(id).get(batchWaitTimeoutMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			throw new QueryTimeoutException("Timed out after " + batchWaitTimeoutMs + " ms waiting for the batch loading " + id, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new QueryTimeoutException("Interrupted while waiting for the batch loading " + id, e);
+		}
+	}
+
+	/**
+	 * Closes the current window and runs its query. A timer firing after an early (full-batch) dispatch
+	 * simply closes whatever window is open at that moment.
+	 */
+	private void dispatch() {
+		Map<String, CompletableFuture<Optional<Video>>> batch;
+		synchronized (lock) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			batch = pending;
+			pending = new LinkedHashMap<>();
+		}
+		queryExecutor.execute(() -> run(batch));
+	}
+
+	private void run(Map<String, CompletableFuture<Optional<Video>>> batch) {
+		try {
+			Map<String, Video> found = new HashMap<>();
+			for (Video video : databaseGuard.call(() -> videoRepository.findAllById(batch.keySet()))) {
+				found.put(video.getId(), video);
+			}
+			batch.forEach((id, future) -> future.complete(Optional.ofNullable(found.get(id))));
+		} catch (RuntimeException e) {
+			batch.values().forEach(future -> future.completeExceptionally(e));
+		}
+	}
+}
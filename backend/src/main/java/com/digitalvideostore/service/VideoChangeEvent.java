@@ -0,0 +1,21 @@
+package com.digitalvideostore.service;
+
+import com.digitalvideostore.model.Video;
+
+/**
+ * Application event published by VideoService after a video is saved or deleted,
+ * and by ChangeStreamSubscriber for writes made on other nodes.
+ * Listeners use it to keep in-memory views of the catalog in sync with the database.
+ *
+ * @param type what happened to the video
+ * @param videoId the affected video's ID
+ * @param video the saved video, or null when it was deleted
+ */
+public record VideoChangeEvent(Type type, String videoId, Video video) {
+
+	public enum Type {
+		ADDED,
+		UPDATED,
+		DELETED
+	}
+}
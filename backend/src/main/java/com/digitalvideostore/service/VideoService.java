@@ -1,17 +1,33 @@
 package com.digitalvideostore.service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Locale;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import com.digitalvideostore.model.Video;
 import com.digitalvideostore.repository.VideoRepository;
+import com.digitalvideostore.service.CatalogIndex.BrowseQuery;
+import com.digitalvideostore.service.CatalogIndex.BrowseResult;
+
+import jakarta.annotation.PostConstruct;
 
 /**
  * Service layer for handling video-related operations.
  * This class contains business logic and interacts with the repository layer.
+ * Every write publishes a VideoChangeEvent so in-memory views of the catalog stay in sync.
+ * Concurrent reads of the same key share one database query (see SingleFlight).
+ * Database calls go through DatabaseGuard; when MongoDB is slow or down, reads are answered from the
+ * in-memory catalog and the response is marked stale.
  */
 @Service
 public class VideoService {
@@ -19,6 +35,45 @@ public class VideoService {
 	@Autowired
 	private VideoRepository videoRepository;
 
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private CatalogIndex catalogIndex;
+
+	@Autowired
+	private VideoBatchLoader videoBatchLoader;
+
+	@Autowired
+	private DatabaseGuard databaseGuard;
+
+	// How long a request waits for another request's in-flight query of the same key
+	@Value("${app.videos.coalesce-timeout-ms:5000}")
+	private long coalesceTimeoutMs;
+
+	private SingleFlight<String, Optional<Video>> byIdLoads;
+	private SingleFlight<String, List<Video>> byCategoryLoads;
+	private SingleFlight<String, List<Video>> featuredLoads;
+	private SingleFlight<String, List<Video>> searchLoads;
+
+	/**
+	 * Result of a multi-get.
+	 *
+	 * @param videos the videos that were found, in request order
+	 * @param missing the requested IDs that do not exist, in request order
+	 */
+	public record VideoLookup(List<Video> videos, List<String> missing) {
+	}
+
+	@PostConstruct
+	void init() {
+		Duration timeout = Duration.ofMillis(coalesceTimeoutMs);
+		byIdLoads = new SingleFlight<>(timeout);
+		byCategoryLoads = new SingleFlight<>(timeout);
+		featuredLoads = new SingleFlight<>(timeout);
+		searchLoads = new SingleFlight<>(timeout);
+	}
+
 	/**
 	 * Saves a new video document to the MongoDB collection.
 	 *
@@ -26,26 +81,76 @@ public class VideoService {
 	 * @return the saved video with its generated ID
 	 */
 	public Video addVideo(Video video) {
-		return videoRepository.save(video);
+		video.setRevision(nextRevision(0));
+		Video saved = databaseGuard.write(() -> videoRepository.save(video));
+		eventPublisher.publishEvent(new VideoChangeEvent(VideoChangeEvent.Type.ADDED, saved.getId(), saved));
+		return saved;
 	}
 
 	/**
-	 * Retrieves all videos from the database.
+	 * Retrieves all videos, from the in-memory catalog once it is loaded.
 	 *
 	 * @return a list of all video documents
 	 */
 	public List<Video> getAllVideos() {
-		return videoRepository.findAll();
+		if (catalogIndex.isLoaded()) {
+			flagIfStale();
+			return catalogIndex.getAll();
+		}
+		return databaseGuard.call(videoRepository::findAll);
 	}
 
 	/**
 	 * Retrieves a specific video by its ID.
 	 *
+	 * - Falls back to the in-memory catalog if MongoDB fails or is too slow.
+	 *
 	 * @param id the unique ID of the video
 	 * @return an Optional containing the video if found, or empty if not
 	 */
 	public Optional<Video> getVideoById(String id) {
-		return videoRepository.findById(id);
+		// Concurrent lookups of different IDs are merged into one $in query by the batch loader,
+		// which runs each batch as a single guarded call
+		return databaseGuard.orStale(
+			() -> byIdLoads.execute(id, () -> videoBatchLoader.get(id)),
+			() -> catalogIndex.isLoaded() ? catalogIndex.get(id) : null);
+	}
+
+	/**
+	 * Retrieves many videos by ID at once.
+	 *
+	 * - Served from the in-memory catalog once it is loaded, otherwise with a single $in query.
+	 * - Duplicate IDs are returned once.
+	 *
+	 * @param ids the video IDs, in the order the caller wants them back
+	 * @return the found videos in request order, plus the IDs that were not found
+	 */
+	public VideoLookup getVideosByIds(List<String> ids) {
+		LinkedHashSet<String> unique = new LinkedHashSet<>(ids);
+
+		Map<String, Video> found = new HashMap<>();
+		if (catalogIndex.isLoaded()) {
+			flagIfStale();
+			for (String id : unique) {
+				catalogIndex.get(id).ifPresent(video -> found.put(id, video));
+			}
+		} else {
+			for (Video video : databaseGuard.call(() -> videoRepository.findAllById(unique))) {
+				found.put(video.getId(), video);
+			}
+		}
+
+		List<Video> videos = new ArrayList<>(found.size());
+		List<String> missing = new ArrayList<>();
+		for (String id : unique) {
+			Video video = found.get(id);
+			if (video != null) {
+				videos.add(video);
+			} else {
+				missing.add(id);
+			}
+		}
+		return new VideoLookup(videos, missing);
 	}
 
 	/**
@@ -54,10 +159,14 @@ public class VideoService {
 	 * @param id the unique ID of the video to delete
 	 */
 	public void deleteVideo(String id) {
-		if (!videoRepository.existsById(id)) {
+		if (!databaseGuard.call(() -> videoRepository.existsById(id))) {
 			throw new IllegalArgumentException("Cannot delete: Video with ID " + id + " not found.");
 		}
-		videoRepository.deleteById(id);
+		databaseGuard.write(() -> {
+			videoRepository.deleteById(id);
+			return null;
+		});
+		eventPublisher.publishEvent(new VideoChangeEvent(VideoChangeEvent.Type.DELETED, id, null));
 	}	
 
 	/**
@@ -75,7 +184,7 @@ public class VideoService {
 	public Video updateVideo(String id, Video updatedVideo) {
 		// Try to find the video in the database by its ID
 		// This returns an Optional, which may or may not contain a result
-		Optional<Video> existingOpt = videoRepository.findById(id);
+		Optional<Video> existingOpt = databaseGuard.call(() -> videoRepository.findById(id));
 
 		// If the Optional is empty, the ID is invalid — throw an exception
 		if (existingOpt.isEmpty()) {
@@ -84,38 +193,85 @@ public class VideoService {
 
 		// Set the ID on the incoming updated object to match the one we're replacing
 		updatedVideo.setId(id);
+		updatedVideo.setRevision(nextRevision(existingOpt.get().getRevision()));
 
 		// Save the updated video (overwriting the original)
-		return videoRepository.save(updatedVideo);
+		Video saved = databaseGuard.write(() -> videoRepository.save(updatedVideo));
+
+		eventPublisher.publishEvent(new VideoChangeEvent(VideoChangeEvent.Type.UPDATED, id, saved));
+		return saved;
 	}
 	
 	/**
 	 * Finds all videos that belong to the given category.
 	 *
+	 * - Served from the in-memory catalog once it is loaded (at boot, from the local snapshot).
+	 *
 	 * @param category either "movies" or "tvShows"
 	 * @return a list of videos in the specified category
 	 */
 	public List<Video> getVideosByCategory(String category) {
-		return videoRepository.findByCategory(category);
+		if (catalogIndex.isLoaded()) {
+			flagIfStale();
+			return catalogIndex.getByCategory(category);
+		}
+		return byCategoryLoads.execute(category, () -> databaseGuard.call(() -> videoRepository.findByCategory(category)));
 	}
 
 	/**
 	 * Searches for videos by a partial title match (case-insensitive).
 	 *
+	 * - Falls back to searching the in-memory catalog if MongoDB fails or is too slow.
+	 *
 	 * @param title the keyword to search for
 	 * @return a list of videos whose titles contain the keyword
 	 */
 	public List<Video> searchVideosByTitle(String title) {
-		return videoRepository.findByTitleContainingIgnoreCase(title);
+		String key = title.toLowerCase(Locale.ROOT);
+		return databaseGuard.orStale(
+			() -> searchLoads.execute(key, () -> databaseGuard.call(() -> videoRepository.findByTitleContainingIgnoreCase(title))),
+			() -> catalogIndex.isLoaded() ? catalogIndex.getAll().stream()
+				.filter(v -> v.getTitle() != null && v.getTitle().toLowerCase(Locale.ROOT).contains(key))
+				.toList() : null);
 	}
 
 	/**
 	 * Retrieves featured videos from a specific category.
 	 *
+	 * - Served from the in-memory catalog once it is loaded (at boot, from the local snapshot).
+	 *
 	 * @param category the category to filter by
 	 * @return a list of featured videos in that category
 	 */
 	public List<Video> getFeaturedVideos(String category) {
-		return videoRepository.findByCategoryAndFeatured(category, true);
+		if (catalogIndex.isLoaded()) {
+			flagIfStale();
+			return catalogIndex.getFeatured(category);
+		}
+		return featuredLoads.execute(category, () -> databaseGuard.call(() -> videoRepository.findByCategoryAndFeatured(category, true)));
+	}
+
+	/**
+	 * Runs a faceted browse query against the in-memory catalog.
+	 *
+	 * @param query the filters and page to return
+	 * @return matching videos and facet counts
+	 */
+	public BrowseResult browseVideos(BrowseQuery query) {
+		BrowseResult result = catalogIndex.browse(query);
+		flagIfStale();
+		return result;
+	}
+
+	// Clock-based so revisions from different nodes interleave sensibly, but always above the one being replaced
+	private static long nextRevision(long current) {
+		return Math.max(System.currentTimeMillis(), current + 1);
+	}
+
+	// In-memory reads are stale if the catalog was only restored from a snapshot, or MongoDB is currently unreachable
+	private void flagIfStale() {
+		if (!catalogIndex.isFresh() || databaseGuard.isOpen()) {
+			databaseGuard.markStale();
+		}
 	}
 }
@@ -0,0 +1,66 @@
+package com.digitalvideostore.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+class PriceWriterTest {
+
+	private final JsonFactory factory = new JsonFactory();
+
+	@Test
+	void matchesDoubleToStringForEveryWholeCentPriceUpTo20000() throws IOException {
+		int mismatches = 0;
+		StringBuilder examples = new StringBuilder();
+		for (long cents = 0; cents <= 2_000_000; cents++) {
+			double price = cents / 100.0;
+			String written = write(price);
+			String expected = Double.toString(price);
+			if (!written.equals(expected) && mismatches++ < 5) {
+				examples.append(' ').append(written).append(" (expected ").append(expected).append(')');
+			}
+		}
+		if (mismatches > 0) {
+			fail(mismatches + " prices differ from Double.toString:" + examples);
+		}
+	}
+
+	@Test
+	void fallsBackForPricesThatAreNotWholeCents() throws IOException {
+		for (double price : new double[] {0.1 + 0.2, 3.999, 12345678.9, 1e9, -3.99}) {
+			assertEquals(Double.toString(price), write(price));
+		}
+	}
+
+	@Test
+	void writesValidJsonInsideArraysAndObjects() throws IOException {
+		StringWriter out = new StringWriter();
+		try (JsonGenerator gen = factory.createGenerator(out)) {
+			gen.writeStartObject();
+			gen.writeFieldName("rentPrice");
+			PriceWriter.write(gen, 3.99);
+			gen.writeFieldName("prices");
+			gen.writeStartArray();
+			PriceWriter.write(gen, 4.0);
+			PriceWriter.write(gen, 14.5);
+			gen.writeEndArray();
+			gen.writeEndObject();
+		}
+		assertEquals("{\"rentPrice\":3.99,\"prices\":[4.0,14.5]}", out.toString());
+	}
+
+	private String write(double price) throws IOException {
+		StringWriter out = new StringWriter();
+		try (JsonGenerator gen = factory.createGenerator(out)) {
+			PriceWriter.write(gen, price);
+		}
+		return out.toString();
+	}
+}
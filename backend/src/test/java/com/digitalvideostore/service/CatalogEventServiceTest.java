@@ -0,0 +1,97 @@
+package com.digitalvideostore.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.digitalvideostore.service.CatalogEventService.CatalogEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class CatalogEventServiceTest {
+
+	private CatalogEventService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new CatalogEventService();
+		ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(service, "replaySize", 4);
+		ReflectionTestUtils.setField(service, "queueSize", 3);
+	}
+
+	@Test
+	void versionsAreExactAsJavaScriptNumbers() {
+		publish(1);
+
+		assertTrue(service.currentVersion() < 1L << 53, "version " + service.currentVersion() + " is above 2^53");
+	}
+
+	@Test
+	void replaysEventsAfterAVersionThisNodeIssued() {
+		long first = service.currentVersion();
+		publish(3);
+
+		List<CatalogEvent> replay = service.replayAfter(first + 1, service.currentVersion());
+
+		assertEquals(List.of(first + 2, first + 3), replay.stream().map(CatalogEvent::version).toList());
+	}
+
+	@Test
+	void replaysEverythingRetainedFromTheFirstVersion() {
+		long first = service.currentVersion();
+		publish(2);
+
+		assertEquals(2, service.replayAfter(first, service.currentVersion()).size());
+	}
+
+	@Test
+	void resetsVersionsThisNodeDidNotIssue() {
+		long first = service.currentVersion();
+		publish(2);
+		long current = service.currentVersion();
+
+		assertNull(service.replayAfter(current + 1, current), "a version from the future");
+		assertNull(service.replayAfter(first - 1, current), "a version from before this node started");
+		assertNull(service.replayAfter(0, current), "a version from another numbering");
+	}
+
+	@Test
+	void resetsWhenTheEventsAfterTheVersionAreNoLongerRetained() {
+		long first = service.currentVersion();
+		publish(6);
+
+		// Only the last 4 are retained: first + 3 .. first + 6
+		assertNull(service.replayAfter(first + 1, service.currentVersion()));
+		assertEquals(1, service.replayAfter(first + 5, service.currentVersion()).size());
+	}
+
+	@Test
+	void resetsWhenTheReplayWouldOverflowTheSubscriberQueue() {
+		long first = service.currentVersion();
+		publish(4);
+
+		assertNull(service.replayAfter(first, service.currentVersion()));
+		assertEquals(2, service.replayAfter(first + 2, service.currentVersion()).size());
+	}
+
+	@Test
+	void resetsOlderVersionsAfterABroadcastReset() {
+		long first = service.currentVersion();
+		publish(2);
+		service.broadcastReset();
+
+		assertNull(service.replayAfter(first + 1, service.currentVersion()));
+	}
+
+	private void publish(int count) {
+		for (int i = 0; i < count; i++) {
+			service.onVideoChange(new VideoChangeEvent(VideoChangeEvent.Type.UPDATED, "v" + i, null));
+		}
+	}
+}
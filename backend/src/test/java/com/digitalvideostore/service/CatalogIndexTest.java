@@ -0,0 +1,191 @@
+package com.digitalvideostore.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.digitalvideostore.model.Video;
+import com.digitalvideostore.service.CatalogIndex.BrowseQuery;
+import com.digitalvideostore.service.CatalogIndex.BrowseResult;
+
+class CatalogIndexTest {
+
+	private final Video alien = video("a", "Alien", "scifi", "movies", 1979, 2.99, 9.99, true);
+	private final Video brazil = video("b", "Brazil", "comedy", "movies", 1985, 3.99, 12.99, false);
+	private final Video cheers = video("c", "Cheers", "comedy", "tvShows", 1982, 1.99, 19.99, false);
+	private final Video dune = video("d", "Dune", "scifi", "movies", 2021, 5.99, 14.99, true);
+	private final Video eureka = video("e", "Eureka", "scifi", "tvShows", 2006, 1.99, 9.99, false);
+
+	private CatalogIndex index;
+
+	@BeforeEach
+	void loadCatalog() {
+		index = new CatalogIndex();
+		// Database order differs from title order on purpose
+		index.load(List.of(eureka, brazil, alien, dune, cheers), true);
+	}
+
+	@Test
+	void browseWithoutFiltersReturnsEverythingByTitle() {
+		BrowseResult result = index.browse(new BrowseQuery(null, null, null, null, null, null, false, null, 0, 10));
+
+		assertEquals(5, result.total());
+		assertEquals(List.of("Alien", "Brazil", "Cheers", "Dune", "Eureka"), titles(result));
+		assertEquals(List.of(eureka, brazil, alien, dune, cheers), index.getAll());
+	}
+
+	@Test
+	void valuesOfOneFacetAreOred() {
+		BrowseResult result = index.browse(
+			new BrowseQuery(Set.of("scifi", "comedy"), Set.of("tvShows"), null, null, null, null, false, null, 0, 10));
+
+		assertEquals(List.of("Cheers", "Eureka"), titles(result));
+	}
+
+	@Test
+	void eachFacetIsCountedWithoutItsOwnFilter() {
+		BrowseResult result = index.browse(
+			new BrowseQuery(Set.of("scifi"), Set.of("movies"), null, null, null, null, false, null, 0, 10));
+
+		assertEquals(List.of("Alien", "Dune"), titles(result));
+		assertEquals(Map.of("scifi", 2, "comedy", 1), result.facets().get("genre"));
+		assertEquals(Map.of("movies", 2, "tvShows", 1), result.facets().get("category"));
+		assertEquals(Map.of("1979", 1, "2021", 1), result.facets().get("year"));
+		assertEquals(Map.of("true", 2, "false", 0), result.facets().get("featured"));
+	}
+
+	@Test
+	void yearRangeIsInclusive() {
+		BrowseResult result = index.browse(new BrowseQuery(null, null, 1982, 2006, null, null, false, null, 0, 10));
+
+		assertEquals(List.of("Brazil", "Cheers", "Eureka"), titles(result));
+		// The year facet ignores the year filter
+		assertEquals(5, result.facets().get("year").size());
+	}
+
+	@Test
+	void openEndedRanges() {
+		assertEquals(List.of("Dune", "Eureka"),
+			titles(index.browse(new BrowseQuery(null, null, 2000, null, null, null, false, null, 0, 10))));
+		assertEquals(List.of("Cheers", "Eureka"),
+			titles(index.browse(new BrowseQuery(null, null, null, null, null, 1.99, false, null, 0, 10))));
+	}
+
+	@Test
+	void priceRangeUsesRentOrBuyPrice() {
+		BrowseResult rent = index.browse(new BrowseQuery(null, null, null, null, 2.0, 4.0, false, null, 0, 10));
+		BrowseResult buy = index.browse(new BrowseQuery(null, null, null, null, 10.0, 15.0, true, null, 0, 10));
+
+		assertEquals(List.of("Alien", "Brazil"), titles(rent));
+		assertEquals(List.of("Brazil", "Dune"), titles(buy));
+	}
+
+	@Test
+	void rangesWithMinAboveMaxMatchNothing() {
+		BrowseResult years = index.browse(new BrowseQuery(null, null, 2010, 1980, null, null, false, null, 0, 10));
+		BrowseResult prices = index.browse(new BrowseQuery(null, null, null, null, 5.0, 1.0, false, null, 0, 10));
+
+		assertEquals(0, years.total());
+		assertTrue(years.videos().isEmpty());
+		assertEquals(Map.of(), years.facets().get("genre"));
+		assertEquals(0, prices.total());
+	}
+
+	@Test
+	void featuredFalseMatchesOnlyNonFeaturedVideos() {
+		BrowseResult result = index.browse(new BrowseQuery(null, null, null, null, null, null, false, false, 0, 10));
+
+		assertEquals(List.of("Brazil", "Cheers", "Eureka"), titles(result));
+		assertEquals(Map.of("true", 2, "false", 3), result.facets().get("featured"));
+	}
+
+	@Test
+	void offsetAndLimitPageThroughMatches() {
+		BrowseResult second = index.browse(new BrowseQuery(null, null, null, null, null, null, false, null, 1, 2));
+		BrowseResult last = index.browse(new BrowseQuery(null, null, null, null, null, null, false, null, 4, 2));
+		BrowseResult past = index.browse(new BrowseQuery(null, null, null, null, null, null, false, null, 5, 2));
+
+		assertEquals(List.of("Brazil", "Cheers"), titles(second));
+		assertEquals(5, second.total());
+		assertEquals(List.of("Eureka"), titles(last));
+		assertTrue(past.videos().isEmpty());
+		assertEquals(5, past.total());
+	}
+
+	@Test
+	void changesDuringALoadAreReappliedOnTopOfIt() {
+		Video renamed = video("c", "Cheers (Remastered)", "comedy", "tvShows", 1982, 1.99, 19.99, false);
+		Video added = video("f", "Fargo", "crime", "movies", 1996, 2.99, 9.99, false);
+
+		index.beginLoad();
+		index.upsert(renamed);
+		index.upsert(added);
+		index.remove("b");
+		// The query result predates the changes above
+		index.load(List.of(alien, brazil, cheers), true);
+
+		assertEquals("Cheers (Remastered)", index.get("c").get().getTitle());
+		assertTrue(index.get("f").isPresent());
+		assertFalse(index.get("b").isPresent());
+		assertEquals(List.of(alien, renamed, added), index.getAll());
+	}
+
+	@Test
+	void changesAreOnlyReappliedToTheLoadTheyOverlapped() {
+		index.beginLoad();
+		index.remove("a");
+		index.load(List.of(alien, brazil), true);
+		index.load(List.of(alien, brazil), true);
+
+		assertTrue(index.get("a").isPresent());
+	}
+
+	@Test
+	void restoredSnapshotIsLoadedButNotFresh() {
+		CatalogIndex restored = new CatalogIndex();
+		restored.restore(List.of(alien));
+
+		assertTrue(restored.isLoaded());
+		assertFalse(restored.isFresh());
+
+		restored.load(List.of(alien, brazil), true);
+		restored.restore(List.of(alien));
+		assertTrue(restored.isFresh());
+		assertEquals(2, restored.getAll().size());
+	}
+
+	@Test
+	void browseFailsBeforeTheFirstLoad() {
+		CatalogIndex empty = new CatalogIndex();
+
+		assertThrows(DataAccessResourceFailureException.class,
+			() -> empty.browse(new BrowseQuery(null, null, null, null, null, null, false, null, 0, 10)));
+	}
+
+	private static List<String> titles(BrowseResult result) {
+		return result.videos().stream().map(Video::getTitle).toList();
+	}
+
+	private static Video video(String id, String title, String genre, String category, int year,
+			double rentPrice, double buyPrice, boolean featured) {
+		Video v = new Video();
+		v.setId(id);
+		v.setTitle(title);
+		v.setGenre(genre);
+		v.setCategory(category);
+		v.setYear(year);
+		v.setRentPrice(rentPrice);
+		v.setBuyPrice(buyPrice);
+		v.setFeatured(featured);
+		return v;
+	}
+}
@@ -0,0 +1,108 @@
+package com.digitalvideostore.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.digitalvideostore.model.Video;
+
+class CatalogSnapshotStoreTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void readReturnsWhatWasWritten() throws IOException {
+		Video full = video("v1", "Am\u00e9lie", "comedy", "movies", 2001, 3.99, 14.99, true);
+		full.setDescription("A shy waitress \uD83C\uDFAC decides to change the lives of those around her");
+		full.setPhrase("She'll change your life");
+		full.setCardImage("/images/amelie.jpg");
+		full.setLargePoster("/images/amelie-large.jpg");
+		full.setMediaFile("movies/amelie.mp4");
+		full.setRevision(1_760_000_000_000L);
+		Video sparse = video("v2", null, null, "tvShows", 0, 0, 0, false);
+		Path file = dir.resolve("catalog.snap");
+
+		CatalogSnapshotStore.write(file, List.of(full, sparse));
+		List<Video> read = CatalogSnapshotStore.read(file);
+
+		assertEquals(2, read.size());
+		assertSameVideo(full, read.get(0));
+		assertSameVideo(sparse, read.get(1));
+		assertNull(read.get(1).getTitle());
+		assertNull(read.get(1).getMediaFile());
+	}
+
+	@Test
+	void emptyCatalogRoundTrips() throws IOException {
+		Path file = dir.resolve("catalog.snap");
+
+		CatalogSnapshotStore.write(file, List.of());
+
+		assertEquals(List.of(), CatalogSnapshotStore.read(file));
+	}
+
+	@Test
+	void rejectsCorruptedContent() throws IOException {
+		Path file = dir.resolve("catalog.snap");
+		CatalogSnapshotStore.write(file, List.of(video("v1", "Heat", "action", "movies", 1995, 2.99, 9.99, false)));
+
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[bytes.length / 2] ^= 0x01;
+		Files.write(file, bytes);
+
+		IOException e = assertThrows(IOException.class, () -> CatalogSnapshotStore.read(file));
+		assertEquals("Snapshot checksum mismatch", e.getMessage());
+	}
+
+	@Test
+	void rejectsTruncatedFile() throws IOException {
+		Path file = dir.resolve("catalog.snap");
+		CatalogSnapshotStore.write(file, List.of(video("v1", "Heat", "action", "movies", 1995, 2.99, 9.99, false)));
+
+		byte[] bytes = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+		assertThrows(IOException.class, () -> CatalogSnapshotStore.read(file));
+	}
+
+	private static Video video(String id, String title, String genre, String category, int year,
+			double rentPrice, double buyPrice, boolean featured) {
+		Video v = new Video();
+		v.setId(id);
+		v.setTitle(title);
+		v.setGenre(genre);
+		v.setCategory(category);
+		v.setYear(year);
+		v.setRentPrice(rentPrice);
+		v.setBuyPrice(buyPrice);
+		v.setFeatured(featured);
+		return v;
+	}
+
+	private static void assertSameVideo(Video expected, Video actual) {
+		assertEquals(expected.getId(), actual.getId());
+		assertEquals(expected.getTitle(), actual.getTitle());
+		assertEquals(expected.getGenre(), actual.getGenre());
+		assertEquals(expected.getCategory(), actual.getCategory());
+		assertEquals(expected.getYear(), actual.getYear());
+		assertEquals(expected.getDescription(), actual.getDescription());
+		assertEquals(expected.getPhrase(), actual.getPhrase());
+		assertEquals(expected.getCardImage(), actual.getCardImage());
+		assertEquals(expected.getLargePoster(), actual.getLargePoster());
+		assertEquals(expected.getRentPrice(), actual.getRentPrice());
+		assertEquals(expected.getBuyPrice(), actual.getBuyPrice());
+		assertEquals(expected.isFeatured(), actual.isFeatured());
+		assertEquals(expected.getMediaFile(), actual.getMediaFile());
+		assertEquals(expected.getRevision(), actual.getRevision());
+	}
+}
@@ -0,0 +1,106 @@
+package com.digitalvideostore.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.digitalvideostore.service.CircuitBreaker.State;
+
+class CircuitBreakerTest {
+
+	@Test
+	void opensAfterConsecutiveFailures() {
+		CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofMinutes(1));
+
+		for (int i = 0; i < 2; i++) {
+			assertTrue(breaker.tryAcquire());
+			breaker.onFailure();
+			assertEquals(State.CLOSED, breaker.getState());
+		}
+		assertTrue(breaker.tryAcquire());
+		breaker.onFailure();
+
+		assertEquals(State.OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire());
+	}
+
+	@Test
+	void successResetsTheFailureCount() {
+		CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMinutes(1));
+
+		breaker.onFailure();
+		breaker.onSuccess();
+		breaker.onFailure();
+
+		assertEquals(State.CLOSED, breaker.getState());
+		assertTrue(breaker.tryAcquire());
+	}
+
+	@Test
+	void allowsOneProbeOnceTheOpenDurationHasPassed() {
+		// A zero open duration makes the probe available immediately
+		CircuitBreaker breaker = openBreaker(Duration.ZERO);
+
+		assertTrue(breaker.tryAcquire());
+		assertEquals(State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.tryAcquire(), "only one probe may be in flight");
+	}
+
+	@Test
+	void successfulProbeClosesTheCircuit() {
+		CircuitBreaker breaker = openBreaker(Duration.ZERO);
+
+		assertTrue(breaker.tryAcquire());
+		breaker.onSuccess();
+
+		assertEquals(State.CLOSED, breaker.getState());
+		assertTrue(breaker.tryAcquire());
+		assertTrue(breaker.tryAcquire());
+	}
+
+	@Test
+	void refusesCallsUntilTheOpenDurationHasPassed() {
+		CircuitBreaker breaker = openBreaker(Duration.ofMinutes(1));
+
+		assertFalse(breaker.tryAcquire());
+		assertEquals(State.OPEN, breaker.getState());
+	}
+
+	@Test
+	void failedProbeOpensTheCircuitAgain() {
+		CircuitBreaker breaker = openBreaker(Duration.ZERO);
+
+		assertTrue(breaker.tryAcquire());
+		breaker.onFailure();
+
+		assertEquals(State.OPEN, breaker.getState());
+	}
+
+	@Test
+	void closingAfterAProbeStartsCountingFailuresAgain() {
+		CircuitBreaker breaker = new CircuitBreaker(3, Duration.ZERO);
+		for (int i = 0; i < 3; i++) {
+			breaker.onFailure();
+		}
+		assertTrue(breaker.tryAcquire());
+		breaker.onSuccess();
+
+		breaker.onFailure();
+		breaker.onFailure();
+		assertEquals(State.CLOSED, breaker.getState());
+		breaker.onFailure();
+		assertEquals(State.OPEN, breaker.getState());
+	}
+
+	private static CircuitBreaker openBreaker(Duration openDuration) {
+		CircuitBreaker breaker = new CircuitBreaker(1, openDuration);
+		assertTrue(breaker.tryAcquire());
+		breaker.onFailure();
+		assertEquals(State.OPEN, breaker.getState());
+		return breaker;
+	}
+}
@@ -0,0 +1,153 @@
+package com.digitalvideostore.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+class SingleFlightTest {
+
+	private static final int WAITERS = 8;
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void concurrentCallersShareOneLoad() throws Exception {
+		SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(10));
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> leader = executor.submit(() -> flight.execute("movies", () -> {
+			loads.incrementAndGet();
+			started.countDown();
+			await(release);
+			return "result";
+		}));
+		started.await();
+
+		List<Future<String>> waiters = startWaiters(flight, loads);
+		release.countDown();
+
+		assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+		for (Future<String> waiter : waiters) {
+			assertEquals("result", waiter.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, loads.get());
+		assertEquals(0, flight.inFlightCount());
+	}
+
+	@Test
+	void failedLoadIsRethrownToEveryWaiter() throws Exception {
+		SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofSeconds(10));
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		IllegalStateException failure = new IllegalStateException("query failed");
+
+		Future<String> leader = executor.submit(() -> flight.execute("movies", () -> {
+			loads.incrementAndGet();
+			started.countDown();
+			await(release);
+			throw failure;
+		}));
+		started.await();
+
+		List<Future<String>> waiters = startWaiters(flight, loads);
+		release.countDown();
+
+		assertSame(failure, assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+		for (Future<String> waiter : waiters) {
+			assertSame(failure, assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS)).getCause());
+		}
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	void waiterGivesUpAfterTimeoutWhileLoadContinues() throws Exception {
+		SingleFlight<String, String> flight = new SingleFlight<>(Duration.ofMillis(50));
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> leader = executor.submit(() -> flight.execute("movies", () -> {
+			started.countDown();
+			await(release);
+			return "result";
+		}));
+		started.await();
+
+		assertThrows(QueryTimeoutException.class, () -> flight.execute("movies", () -> "second load"));
+
+		release.countDown();
+		assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void nothingIsCachedAfterCompletion() {
+		SingleFlight<String, Integer> flight = new SingleFlight<>(Duration.ofSeconds(1));
+		AtomicInteger loads = new AtomicInteger();
+
+		assertEquals(1, flight.execute("movies", loads::incrementAndGet));
+		assertEquals(2, flight.execute("movies", loads::incrementAndGet));
+	}
+
+	// Starts callers for the same key and returns once all of them are blocked on the in-flight load
+	private List<Future<String>> startWaiters(SingleFlight<String, String> flight, AtomicInteger loads) throws InterruptedException {
+		List<Future<String>> waiters = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		CountDownLatch registered = new CountDownLatch(WAITERS);
+		for (int i = 0; i < WAITERS; i++) {
+			waiters.add(executor.submit(() -> {
+				synchronized (threads) {
+					threads.add(Thread.currentThread());
+				}
+				registered.countDown();
+				return flight.execute("movies", () -> {
+					loads.incrementAndGet();
+					return "own load";
+				});
+			}));
+		}
+		registered.await();
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (System.nanoTime() < deadline && !allWaiting(threads)) {
+			Thread.sleep(1);
+		}
+		return waiters;
+	}
+
+	private static boolean allWaiting(List<Thread> threads) {
+		synchronized (threads) {
+			return threads.stream().allMatch(t -> t.getState() == Thread.State.TIMED_WAITING);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}